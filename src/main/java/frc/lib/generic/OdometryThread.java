@@ -13,15 +13,17 @@
 
 package frc.lib.generic;
 
-import edu.wpi.first.wpilibj.Notifier;
-import edu.wpi.first.wpilibj.Timer;
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.StatusSignal;
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.lib.util.DoubleRingBuffer;
+import frc.lib.util.SampleArrayCache;
+import frc.lib.util.TimestampedDoubleRingBuffer;
 import org.littletonrobotics.junction.AutoLog;
 import org.littletonrobotics.junction.Logger;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.Arrays;
 import java.util.function.DoubleSupplier;
 
 import static frc.robot.GlobalConstants.*;
@@ -29,14 +31,60 @@ import static frc.robot.GlobalConstants.*;
 /**
  * Provides an interface for asynchronously reading high-frequency measurements to a set of queues.
  *
- * <p>This version is intended for devices like the SparkMax that require polling rather than a
- * blocking thread. A Notifier thread is used to gather samples with consistent timing.
+ * <p>Signals are sampled in named {@link SignalGroup}s, each at its own rate and with its own timestamps.
+ * This class runs two kinds of sampling engines:
+ * <ul>
+ *   <li>A Notifier poller per group, for devices like the SparkMax that require polling rather than a blocking thread.
+ *   It gathers samples with consistent timing, stamped with the time of the poll.</li>
+ *   <li>A time-synchronized thread for the Phoenix 6 signals (TalonFX, CANcoder, Pigeon2) of the {@link SignalGroup#ODOMETRY}
+ *   group. It blocks on {@link BaseStatusSignal#waitForAll} until every registered signal received a new frame, reads all
+ *   of them in a single CAN round-trip, and stamps the sample with the time the frames arrived. Phoenix 6 signals of
+ *   other groups are polled by their group's Notifier.</li>
+ * </ul>
+ * Each engine has its own tick timestamp queue, see {@link #getLatestTimestamps(SignalGroup)} and
+ * {@link #getLatestSynchronizedTimestamps()}.
+ *
+ * <p>On top of the tick timestamps, every sample carries its own timestamp: the arrival time of its CAN frame for
+ * Phoenix 6 signals, the value of the signal's timestamp source if one was given, or the poll time otherwise.
+ *
+ * <p>Samples are stored in primitive ring buffers, so sampling doesn't allocate.
+ *
+ * <p>No engine ever waits for the main loop. Each engine publishes its ticks under a sequence counter (a seqlock),
+ * and the main loop calls {@link #captureSnapshot()} to fix, in every queue, the samples it will drain this cycle.
+ * If an engine was mid-tick during the capture, the capture is simply retried. A tick is only written if every queue of
+ * its engine has room for it, so all queues of an engine always hold the same samples.
+ *
+ * <p>The odometry sampling threads can run at real-time priority and be pinned to a core, see
+ * {@link frc.robot.GlobalConstants#FASTER_THREAD_SCHEDULING}.
  */
 public class OdometryThread extends Thread {
-    private final List<DoubleSupplier> signals = new ArrayList<>();
-    private final List<Queue<Double>> queues = new ArrayList<>();
+    private static final int QUEUE_CAPACITY = 128;
+    /** The longest the Phoenix thread waits before retrying after {@link BaseStatusSignal#waitForAll} failed. */
+    private static final double MAXIMUM_WAIT_ERROR_BACKOFF_SECONDS = 0.1;
+
+    private record PhoenixSignals(BaseStatusSignal[] signals, TimestampedDoubleRingBuffer[] queues) { }
+
+    private final PolledSignalGroup[] polledGroups = new PolledSignalGroup[SignalGroup.values().length];
 
-    private final Queue<Double> timestamps = new ArrayBlockingQueue<>(100);
+    private volatile PhoenixSignals phoenixSignals = new PhoenixSignals(new BaseStatusSignal[0], new TimestampedDoubleRingBuffer[0]);
+    /** The CAN bus of the time-synchronized signals, null until the first one is registered. */
+    private String phoenixNetwork = null;
+    private final DoubleRingBuffer phoenixTimestamps = new DoubleRingBuffer(QUEUE_CAPACITY);
+    private final SampleArrayCache phoenixTimestampArrays = new SampleArrayCache(phoenixTimestamps.capacity());
+    /** Odd while the Phoenix thread is writing a tick. Only written by the Phoenix thread. */
+    private volatile long phoenixSequence = 0;
+
+    private final OdometryTickStatistics phoenixStatistics =
+            new OdometryTickStatistics(1.0 / SignalGroup.ODOMETRY.getFrequencyHertz(), QUEUE_CAPACITY);
+
+    /** Whether the main loop is between {@link #captureSnapshot()} and {@link #updateLatestTimestamps()}. */
+    private volatile boolean isConsumerActive = false;
+    private volatile long phoenixContentionCount = 0;
+    private volatile ThreadScheduling.AppliedScheduling phoenixThreadScheduling = ThreadScheduling.AppliedScheduling.NONE;
+    /** Only written by the Phoenix thread. */
+    private volatile long phoenixWaitErrorCount = 0;
+    private volatile StatusCode lastPhoenixWaitError = StatusCode.OK;
+    private long captureRetryCount = 0;
 
     private static OdometryThread INSTANCE = null;
 
@@ -50,21 +98,50 @@ public class OdometryThread extends Thread {
     }
 
     private OdometryThread() {
-        if (CURRENT_MODE == Mode.REPLAY) return;
+        setName("PhoenixOdometryThread");
+        setDaemon(true);
+
+        for (SignalGroup group : SignalGroup.values()) {
+            polledGroups[group.ordinal()] = new PolledSignalGroup(group, QUEUE_CAPACITY);
+        }
+    }
+
+    /**
+     * Registers a signal to be polled in the {@link SignalGroup#ODOMETRY} group. Its samples are stamped with the time of the poll.
+     *
+     * @param signal the signal to poll
+     * @return the queue the samples will be written to
+     */
+    public TimestampedDoubleRingBuffer registerSignal(DoubleSupplier signal) {
+        return registerSignal(signal, null, SignalGroup.ODOMETRY);
+    }
 
-        Notifier notifier = new Notifier(this::periodic);
-        notifier.setName("OdometryThread");
-        Timer.delay(1);
-        notifier.startPeriodic(1.0 / ODOMETRY_FREQUENCY_HERTZ);
+    /**
+     * Registers a signal to be polled in the given group. Its samples are stamped with the time of the poll.
+     *
+     * @param signal the signal to poll
+     * @param group  the group to poll the signal in
+     * @return the queue the samples will be written to
+     */
+    public TimestampedDoubleRingBuffer registerSignal(DoubleSupplier signal, SignalGroup group) {
+        return registerSignal(signal, null, group);
     }
 
-    public Queue<Double> registerSignal(DoubleSupplier signal) {
-        Queue<Double> queue = new ArrayBlockingQueue<>(100);
+    /**
+     * Registers a signal to be polled in the given group, stamping each sample with the time the device measured it.
+     *
+     * @param signal          the signal to poll
+     * @param timestampSource supplies the measurement time of the signal's latest value, in FPGA seconds.
+     *                        If null, samples are stamped with the time of the poll
+     * @param group           the group to poll the signal in
+     * @return the queue the samples will be written to
+     */
+    public TimestampedDoubleRingBuffer registerSignal(DoubleSupplier signal, DoubleSupplier timestampSource, SignalGroup group) {
+        final TimestampedDoubleRingBuffer queue = new TimestampedDoubleRingBuffer(QUEUE_CAPACITY);
         FASTER_THREAD_LOCK.lock();
 
         try {
-            signals.add(signal);
-            queues.add(queue);
+            polledGroups[group.ordinal()].register(signal, timestampSource, queue, this);
         } finally {
             FASTER_THREAD_LOCK.unlock();
         }
@@ -72,35 +149,269 @@ public class OdometryThread extends Thread {
         return queue;
     }
 
-    private void periodic() {
-        FASTER_THREAD_LOCK.lock();
+    /**
+     * Registers a Phoenix 6 signal to be sampled by the time-synchronized thread, in the {@link SignalGroup#ODOMETRY} group.
+     *
+     * @see #registerSignal(StatusSignal, String, SignalGroup)
+     */
+    public TimestampedDoubleRingBuffer registerSignal(StatusSignal<Double> signal, String network) {
+        return registerSignal(signal, network, SignalGroup.ODOMETRY);
+    }
 
-        timestamps.offer(Logger.getRealTimestamp() / 1.0e6);
+    /**
+     * Registers a Phoenix 6 signal to be sampled in the given group.
+     * The faster thread samples its own copy of the signal, so it never races the main loop's refreshes.
+     * Each sample is stamped with the arrival time of its own CAN frame.
+     * <p>
+     * Signals of the {@link SignalGroup#ODOMETRY} group are sampled in sync by a dedicated thread, which waits for all of
+     * them together, so they must be on the same CAN bus. The first registered signal picks the bus; signals of the group
+     * on any other bus are polled by the group's Notifier instead. Signals of other groups are polled by their group's Notifier.
+     *
+     * @param signal  the signal to sample. Its update frequency should match the group's frequency
+     * @param network the CAN bus of the signal's device
+     * @param group   the group to sample the signal in
+     * @return the queue the samples will be written to
+     */
+    public TimestampedDoubleRingBuffer registerSignal(StatusSignal<Double> signal, String network, SignalGroup group) {
+        final StatusSignal<Double> signalCopy = signal.clone();
+
+        FASTER_THREAD_LOCK.lock();
 
         try {
-            for (int i = 0; i < signals.size(); i++) {
-                queues.get(i).offer(signals.get(i).getAsDouble());
+            if (group == SignalGroup.ODOMETRY && phoenixNetwork == null)
+                phoenixNetwork = network;
+
+            if (group != SignalGroup.ODOMETRY || !phoenixNetwork.equals(network)) {
+                if (group == SignalGroup.ODOMETRY) {
+                    DriverStation.reportWarning("OdometryThread: a signal on CAN bus \"" + network + "\" can't be waited for " +
+                            "with the signals on \"" + phoenixNetwork + "\", so it's polled instead", false);
+                }
+
+                return registerSignal(
+                        () -> signalCopy.refresh().getValueAsDouble(),
+                        () -> Logger.getRealTimestamp() / 1.0e6 - signalCopy.getTimestamp().getLatency(),
+                        group
+                );
             }
+
+            final TimestampedDoubleRingBuffer queue = new TimestampedDoubleRingBuffer(QUEUE_CAPACITY);
+            final PhoenixSignals current = phoenixSignals;
+
+            phoenixSignals = new PhoenixSignals(
+                    PolledSignalGroup.append(current.signals(), signalCopy),
+                    PolledSignalGroup.append(current.queues(), queue)
+            );
+
+            if (CURRENT_MODE != Mode.REPLAY && getState() == State.NEW)
+                start();
+
+            return queue;
         } finally {
             FASTER_THREAD_LOCK.unlock();
         }
     }
 
+    @Override
+    public void run() {
+        phoenixThreadScheduling = FASTER_THREAD_SCHEDULING.applyToFasterThread();
+
+        final double periodSeconds = 1.0 / SignalGroup.ODOMETRY.getFrequencyHertz();
+        double backoffSeconds = periodSeconds;
+
+        while (!isInterrupted()) {
+            final PhoenixSignals signalsToSample = phoenixSignals;
+            final BaseStatusSignal[] signals = signalsToSample.signals();
+
+            final StatusCode status = BaseStatusSignal.waitForAll(2 * periodSeconds, signals);
+
+            // On a timeout or a CAN error the values are stale, so there's no tick to record. Waiting returns right away
+            // on some errors, so back off instead of spinning at real-time priority.
+            if (!status.isOK()) {
+                phoenixWaitErrorCount++;
+                lastPhoenixWaitError = status;
+
+                if (!backOff(backoffSeconds)) return;
+
+                backoffSeconds = Math.min(backoffSeconds * 2, MAXIMUM_WAIT_ERROR_BACKOFF_SECONDS);
+                continue;
+            }
+
+            backoffSeconds = periodSeconds;
+
+            final double currentTimestamp = Logger.getRealTimestamp() / 1.0e6;
+
+            phoenixStatistics.recordTickStart(currentTimestamp);
+
+            if (isConsumerActive) phoenixContentionCount++;
+
+            if (phoenixTimestamps.isFull() || PolledSignalGroup.isAnyFull(signalsToSample.queues())) {
+                phoenixStatistics.recordDroppedTick();
+                continue;
+            }
+
+            final long sequence = phoenixSequence;
+
+            phoenixSequence = sequence + 1;
+
+            for (int i = 0; i < signals.length; i++) {
+                signalsToSample.queues()[i].offer(
+                        signals[i].getValueAsDouble(),
+                        currentTimestamp - signals[i].getTimestamp().getLatency()
+                );
+            }
+
+            phoenixTimestamps.offer(getFrameTimestamp(signals, currentTimestamp));
+            phoenixStatistics.recordTickEnd(currentTimestamp, Logger.getRealTimestamp() / 1.0e6);
+
+            phoenixSequence = sequence + 2;
+        }
+    }
+
+    /**
+     * @return false if the thread was interrupted while sleeping
+     */
+    private boolean backOff(double seconds) {
+        try {
+            Thread.sleep((long) (seconds * 1000));
+            return true;
+        } catch (InterruptedException e) {
+            interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * The frames don't arrive at exactly the same time. Use the average of their arrival times, shifted into the FPGA time base.
+     */
+    private double getFrameTimestamp(BaseStatusSignal[] sampledSignals, double currentTimestamp) {
+        double totalLatency = 0;
+
+        for (BaseStatusSignal signal : sampledSignals) {
+            totalLatency += signal.getTimestamp().getLatency();
+        }
+
+        return currentTimestamp - totalLatency / sampledSignals.length;
+    }
+
+    /**
+     * Fixes the samples every queue will return until the next capture, without blocking any engine.
+     * <p>
+     * Call this once per main loop cycle, before any device drains its queues.
+     * {@link #updateLatestTimestamps()} ends the cycle.
+     */
+    public void captureSnapshot() {
+        isConsumerActive = true;
+
+        if (CURRENT_MODE == Mode.REPLAY) return;
+
+        for (PolledSignalGroup polledGroup : polledGroups) {
+            captureRetryCount += polledGroup.capture();
+        }
+
+        capturePhoenixQueues();
+    }
+
+    private void capturePhoenixQueues() {
+        while (true) {
+            final long sequence = phoenixSequence;
+
+            if ((sequence & 1) == 0) {
+                for (TimestampedDoubleRingBuffer queue : phoenixSignals.queues()) queue.capture();
+                phoenixTimestamps.capture();
+                phoenixStatistics.capture();
+
+                if (phoenixSequence == sequence) return;
+            }
+
+            captureRetryCount++;
+            Thread.onSpinWait();
+        }
+    }
+
     public void updateLatestTimestamps() {
         if (CURRENT_MODE != Mode.REPLAY) {
-            threadInputs.timestamps = timestamps.stream().mapToDouble(Double::doubleValue).toArray();
-            timestamps.clear();
+            threadInputs.synchronizedTimestamps = phoenixTimestampArrays.get(phoenixTimestamps.capturedSize());
+            phoenixTimestamps.drainTo(threadInputs.synchronizedTimestamps);
+            threadInputs.producerContentionCount = phoenixContentionCount;
+            threadInputs.captureRetryCount = captureRetryCount;
+            threadInputs.waitErrorCount = phoenixWaitErrorCount;
+            threadInputs.lastWaitError = lastPhoenixWaitError.name();
+            threadInputs.isRealTime = phoenixThreadScheduling.isRealTime();
+            threadInputs.pinnedCore = phoenixThreadScheduling.pinnedCore();
+
+            updatePhoenixStatistics();
         }
 
+        isConsumerActive = false;
+
         Logger.processInputs("OdometryThread", threadInputs);
+
+        for (PolledSignalGroup polledGroup : polledGroups) {
+            polledGroup.updateInputs();
+        }
+    }
+
+    private void updatePhoenixStatistics() {
+        phoenixStatistics.update();
+
+        threadInputs.samplesDelivered = threadInputs.synchronizedTimestamps.length;
+        threadInputs.maxSampleAgeSeconds = threadInputs.synchronizedTimestamps.length == 0
+                ? 0
+                : Logger.getRealTimestamp() / 1.0e6 - threadInputs.synchronizedTimestamps[0];
+        threadInputs.maxTickDurationSeconds = phoenixStatistics.getMaxTickDurationSeconds();
+        threadInputs.maxJitterSeconds = phoenixStatistics.getMaxJitterSeconds();
+        threadInputs.jitterHistogram = phoenixStatistics.getJitterHistogram();
+        threadInputs.droppedTicks = phoenixStatistics.getDroppedTickCount();
     }
 
+    boolean isConsumerActive() {
+        return isConsumerActive;
+    }
+
+    /**
+     * @return the timestamps of the {@link SignalGroup#ODOMETRY} group's polls since the last main loop cycle
+     */
     public double[] getLatestTimestamps() {
-        return threadInputs.timestamps;
+        return getLatestTimestamps(SignalGroup.ODOMETRY);
+    }
+
+    /**
+     * @return the timestamps of the group's polls since the last main loop cycle
+     */
+    public double[] getLatestTimestamps(SignalGroup group) {
+        return polledGroups[group.ordinal()].getLatestTimestamps();
+    }
+
+    /**
+     * @return the timestamps of the samples taken by the time-synchronized Phoenix thread since the last main loop cycle
+     */
+    public double[] getLatestSynchronizedTimestamps() {
+        return threadInputs.synchronizedTimestamps;
     }
 
     @AutoLog
     public static class ThreadInputs {
-        public double[] timestamps;
+        public double[] synchronizedTimestamps = new double[0];
+
+        /** Ticks the Phoenix thread sampled while the main loop was handling hardware, which used to block on a shared lock. */
+        public long producerContentionCount = 0;
+        /** Snapshot captures the main loop retried because an engine was mid-tick, across all engines. */
+        public long captureRetryCount = 0;
+
+        /* Timing metrics of the Phoenix thread, see PolledSignalGroup.SignalGroupInputs for their meaning. */
+        public int samplesDelivered = 0;
+        public double maxSampleAgeSeconds = 0;
+        public double maxTickDurationSeconds = 0;
+        public double maxJitterSeconds = 0;
+        public long[] jitterHistogram = new long[0];
+        public long droppedTicks = 0;
+
+        /** Waits for the Phoenix signals that timed out or failed, and the latest failure. Their ticks aren't recorded. */
+        public long waitErrorCount = 0;
+        public String lastWaitError = "OK";
+
+        /** The scheduling of the Phoenix thread, see {@link frc.lib.generic.ThreadScheduling}. */
+        public boolean isRealTime = false;
+        public int pinnedCore = -1;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,140 @@
+package frc.lib.generic;
+
+import frc.lib.util.DoubleRingBuffer;
+import frc.lib.util.SampleArrayCache;
+
+/**
+ * Timing and drop statistics of one {@link OdometryThread} sampling engine.
+ * <p>
+ * The engine records every tick from its own thread into ring buffers, which are captured and drained together with the
+ * sample queues. All the math happens on the main loop, so the engine only pays for two timestamp reads per tick.
+ */
+class OdometryTickStatistics {
+    /**
+     * Upper edges of the period jitter histogram buckets, in seconds. The last bucket holds everything above the last edge.
+     */
+    static final double[] JITTER_HISTOGRAM_EDGES_SECONDS = {0.00025, 0.0005, 0.001, 0.002, 0.005};
+
+    private final double nominalPeriodSeconds;
+
+    private final DoubleRingBuffer tickDurations;
+    private final DoubleRingBuffer tickPeriods;
+    private final double[] drainedValues;
+
+    /** Start of the previous tick, including dropped ones. Only touched by the engine. */
+    private double lastTickStartSeconds = Double.NaN;
+    /** Only written by the engine. */
+    private volatile long droppedTickCount = 0;
+
+    private final long[] jitterHistogram = new long[JITTER_HISTOGRAM_EDGES_SECONDS.length + 1];
+    /** Copies of the histogram handed out for logging, reused like {@link SampleArrayCache}'s arrays. */
+    private final long[][] loggedJitterHistograms = new long[SampleArrayCache.POOL_SIZE][];
+    private int nextLoggedJitterHistogram = 0;
+    private double maxTickDurationSeconds = 0;
+    private double maxJitterSeconds = 0;
+
+    OdometryTickStatistics(double nominalPeriodSeconds, int capacity) {
+        this.nominalPeriodSeconds = nominalPeriodSeconds;
+
+        tickDurations = new DoubleRingBuffer(capacity);
+        tickPeriods = new DoubleRingBuffer(capacity);
+        drainedValues = new double[tickDurations.capacity()];
+    }
+
+    /**
+     * Marks the start of a tick, dropped or not. Engine only.
+     */
+    void recordTickStart(double startSeconds) {
+        if (!Double.isNaN(lastTickStartSeconds))
+            tickPeriods.offer(startSeconds - lastTickStartSeconds);
+
+        lastTickStartSeconds = startSeconds;
+    }
+
+    /**
+     * Records how long a written tick took. Engine only.
+     */
+    void recordTickEnd(double startSeconds, double endSeconds) {
+        tickDurations.offer(endSeconds - startSeconds);
+    }
+
+    /**
+     * Records a tick that was dropped because its queues were full. Engine only.
+     */
+    void recordDroppedTick() {
+        droppedTickCount++;
+    }
+
+    /**
+     * Consumer only. Call alongside the capture of the engine's queues.
+     */
+    void capture() {
+        tickDurations.capture();
+        tickPeriods.capture();
+    }
+
+    /**
+     * Drains the captured ticks and updates the statistics. Consumer only.
+     */
+    void update() {
+        maxTickDurationSeconds = 0;
+        maxJitterSeconds = 0;
+
+        final int durationCount = tickDurations.drainTo(drainedValues);
+
+        for (int i = 0; i < durationCount; i++)
+            maxTickDurationSeconds = Math.max(maxTickDurationSeconds, drainedValues[i]);
+
+        final int periodCount = tickPeriods.drainTo(drainedValues);
+
+        for (int i = 0; i < periodCount; i++) {
+            final double jitter = Math.abs(drainedValues[i] - nominalPeriodSeconds);
+
+            maxJitterSeconds = Math.max(maxJitterSeconds, jitter);
+            jitterHistogram[getHistogramBucket(jitter)]++;
+        }
+    }
+
+    /**
+     * @return the longest tick since the last update, in seconds
+     */
+    double getMaxTickDurationSeconds() {
+        return maxTickDurationSeconds;
+    }
+
+    /**
+     * @return the largest deviation of the tick period from the nominal period since the last update, in seconds
+     */
+    double getMaxJitterSeconds() {
+        return maxJitterSeconds;
+    }
+
+    /**
+     * Call at most once per cycle. The array is reused, see {@link SampleArrayCache}.
+     *
+     * @return the amount of periods that fell in each bucket of {@link #JITTER_HISTOGRAM_EDGES_SECONDS} since startup
+     */
+    long[] getJitterHistogram() {
+        if (loggedJitterHistograms[nextLoggedJitterHistogram] == null)
+            loggedJitterHistograms[nextLoggedJitterHistogram] = new long[jitterHistogram.length];
+
+        final long[] loggedJitterHistogram = loggedJitterHistograms[nextLoggedJitterHistogram];
+
+        nextLoggedJitterHistogram = (nextLoggedJitterHistogram + 1) % loggedJitterHistograms.length;
+        System.arraycopy(jitterHistogram, 0, loggedJitterHistogram, 0, jitterHistogram.length);
+
+        return loggedJitterHistogram;
+    }
+
+    long getDroppedTickCount() {
+        return droppedTickCount;
+    }
+
+    private static int getHistogramBucket(double jitterSeconds) {
+        for (int i = 0; i < JITTER_HISTOGRAM_EDGES_SECONDS.length; i++) {
+            if (jitterSeconds < JITTER_HISTOGRAM_EDGES_SECONDS[i]) return i;
+        }
+
+        return JITTER_HISTOGRAM_EDGES_SECONDS.length;
+    }
+}
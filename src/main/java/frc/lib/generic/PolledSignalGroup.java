@@ -0,0 +1,207 @@
+package frc.lib.generic;
+
+import edu.wpi.first.wpilibj.Notifier;
+import frc.lib.util.DoubleRingBuffer;
+import frc.lib.util.SampleArrayCache;
+import frc.lib.util.TimestampedDoubleRingBuffer;
+import org.littletonrobotics.junction.AutoLog;
+import org.littletonrobotics.junction.Logger;
+
+import java.util.Arrays;
+import java.util.function.DoubleSupplier;
+
+import static frc.robot.GlobalConstants.CURRENT_MODE;
+import static frc.robot.GlobalConstants.FASTER_THREAD_SCHEDULING;
+import static frc.robot.GlobalConstants.Mode;
+
+/**
+ * The signals of one {@link SignalGroup}, polled by their own Notifier at the group's rate.
+ * <p>
+ * See {@link OdometryThread} for how ticks are handed to the main loop.
+ */
+class PolledSignalGroup {
+    private record PolledSignals(DoubleSupplier[] signals, DoubleSupplier[] timestampSources,
+                                 TimestampedDoubleRingBuffer[] queues) { }
+
+    private final SignalGroup group;
+    private final String displayName;
+    private final String logKey;
+
+    private volatile PolledSignals polledSignals =
+            new PolledSignals(new DoubleSupplier[0], new DoubleSupplier[0], new TimestampedDoubleRingBuffer[0]);
+    private final DoubleRingBuffer timestamps;
+    private final SampleArrayCache timestampArrays;
+    /** Odd while the Notifier is writing a tick. Only written by the Notifier. */
+    private volatile long sequence = 0;
+
+    private final OdometryTickStatistics statistics;
+    private volatile long contentionCount = 0;
+
+    private final SignalGroupInputsAutoLogged inputs = new SignalGroupInputsAutoLogged();
+
+    private Notifier notifier = null;
+    /** Only the odometry group gets the faster thread's scheduling, see {@link ThreadScheduling}. */
+    private final ThreadScheduling scheduling;
+    /** Only touched by the Notifier. */
+    private boolean isSchedulingApplied = false;
+    private volatile ThreadScheduling.AppliedScheduling appliedScheduling = ThreadScheduling.AppliedScheduling.NONE;
+
+    PolledSignalGroup(SignalGroup group, int capacity) {
+        this.group = group;
+
+        displayName = group.name().charAt(0) + group.name().substring(1).toLowerCase();
+        logKey = "OdometryThread/" + displayName;
+        timestamps = new DoubleRingBuffer(capacity);
+        timestampArrays = new SampleArrayCache(timestamps.capacity());
+        statistics = new OdometryTickStatistics(1.0 / group.getFrequencyHertz(), capacity);
+        scheduling = group == SignalGroup.ODOMETRY ? FASTER_THREAD_SCHEDULING : ThreadScheduling.DEFAULT;
+    }
+
+    /**
+     * Adds a signal to the group, and starts polling the group if it wasn't polled yet.
+     * Must be called while holding {@link frc.robot.GlobalConstants#FASTER_THREAD_LOCK}.
+     */
+    void register(DoubleSupplier signal, DoubleSupplier timestampSource, TimestampedDoubleRingBuffer queue,
+                  OdometryThread odometryThread) {
+        final PolledSignals current = polledSignals;
+
+        polledSignals = new PolledSignals(
+                append(current.signals(), signal),
+                append(current.timestampSources(), timestampSource),
+                append(current.queues(), queue)
+        );
+
+        if (notifier != null || CURRENT_MODE == Mode.REPLAY) return;
+
+        notifier = new Notifier(() -> sample(odometryThread.isConsumerActive()));
+        notifier.setName("OdometryThread" + displayName);
+        notifier.startPeriodic(1.0 / group.getFrequencyHertz());
+    }
+
+    private void sample(boolean isConsumerActive) {
+        if (!isSchedulingApplied) {
+            appliedScheduling = scheduling.applyToFasterThread();
+            isSchedulingApplied = true;
+        }
+
+        final PolledSignals signalsToSample = polledSignals;
+        final double currentTimestamp = Logger.getRealTimestamp() / 1.0e6;
+
+        statistics.recordTickStart(currentTimestamp);
+
+        if (isConsumerActive) contentionCount++;
+
+        if (timestamps.isFull() || isAnyFull(signalsToSample.queues())) {
+            statistics.recordDroppedTick();
+            return;
+        }
+
+        final long currentSequence = sequence;
+
+        sequence = currentSequence + 1;
+
+        for (int i = 0; i < signalsToSample.signals().length; i++) {
+            final DoubleSupplier timestampSource = signalsToSample.timestampSources()[i];
+
+            signalsToSample.queues()[i].offer(
+                    signalsToSample.signals()[i].getAsDouble(),
+                    timestampSource == null ? currentTimestamp : timestampSource.getAsDouble()
+            );
+        }
+
+        timestamps.offer(currentTimestamp);
+        statistics.recordTickEnd(currentTimestamp, Logger.getRealTimestamp() / 1.0e6);
+
+        sequence = currentSequence + 2;
+    }
+
+    /**
+     * Captures every queue of the group at the same tick. Consumer only.
+     *
+     * @return how many times the capture had to be retried because the Notifier was mid-tick
+     */
+    long capture() {
+        long retries = 0;
+
+        while (true) {
+            final long capturedSequence = sequence;
+
+            if ((capturedSequence & 1) == 0) {
+                for (TimestampedDoubleRingBuffer queue : polledSignals.queues()) queue.capture();
+                timestamps.capture();
+                statistics.capture();
+
+                if (sequence == capturedSequence) return retries;
+            }
+
+            retries++;
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Drains the captured timestamps and statistics, and logs them. Consumer only.
+     */
+    void updateInputs() {
+        if (CURRENT_MODE != Mode.REPLAY) {
+            inputs.timestamps = timestampArrays.get(timestamps.capturedSize());
+            timestamps.drainTo(inputs.timestamps);
+
+            statistics.update();
+            inputs.samplesDelivered = inputs.timestamps.length;
+            inputs.maxSampleAgeSeconds = inputs.timestamps.length == 0 ? 0 : Logger.getRealTimestamp() / 1.0e6 - inputs.timestamps[0];
+            inputs.maxTickDurationSeconds = statistics.getMaxTickDurationSeconds();
+            inputs.maxJitterSeconds = statistics.getMaxJitterSeconds();
+            inputs.jitterHistogram = statistics.getJitterHistogram();
+            inputs.droppedTicks = statistics.getDroppedTickCount();
+            inputs.producerContentionCount = contentionCount;
+            inputs.isRealTime = appliedScheduling.isRealTime();
+            inputs.pinnedCore = appliedScheduling.pinnedCore();
+        }
+
+        Logger.processInputs(logKey, inputs);
+    }
+
+    double[] getLatestTimestamps() {
+        return inputs.timestamps;
+    }
+
+    static boolean isAnyFull(TimestampedDoubleRingBuffer[] queues) {
+        for (TimestampedDoubleRingBuffer queue : queues) {
+            if (queue.isFull()) return true;
+        }
+
+        return false;
+    }
+
+    static <T> T[] append(T[] array, T element) {
+        final T[] newArray = Arrays.copyOf(array, array.length + 1);
+        newArray[array.length] = element;
+        return newArray;
+    }
+
+    @AutoLog
+    public static class SignalGroupInputs {
+        public double[] timestamps = new double[0];
+
+        /*
+         * Durations and jitter are the worst since the previous main loop cycle, the sample age is how old the oldest
+         * delivered sample was when the main loop got it. The jitter histogram counts the deviation of every period from
+         * the nominal one since startup, bucketed by OdometryTickStatistics.JITTER_HISTOGRAM_EDGES_SECONDS.
+         * A dropped tick drops a sample from every signal of the group, so it's also the per-signal drop count.
+         */
+        public int samplesDelivered = 0;
+        public double maxSampleAgeSeconds = 0;
+        public double maxTickDurationSeconds = 0;
+        public double maxJitterSeconds = 0;
+        public long[] jitterHistogram = new long[0];
+        public long droppedTicks = 0;
+
+        /** Ticks sampled while the main loop was handling hardware, which used to block on a shared lock. */
+        public long producerContentionCount = 0;
+
+        /** The scheduling of the group's Notifier thread, see {@link frc.lib.generic.ThreadScheduling}. */
+        public boolean isRealTime = false;
+        public int pinnedCore = -1;
+    }
+}
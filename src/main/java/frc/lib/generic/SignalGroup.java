@@ -0,0 +1,28 @@
+package frc.lib.generic;
+
+import static frc.robot.GlobalConstants.ODOMETRY_FREQUENCY_HERTZ;
+
+/**
+ * The sampling groups of the {@link OdometryThread}. Each group is sampled at its own rate and has its own timestamps.
+ * <p>
+ * Only signals that feed odometry need {@link #ODOMETRY}. Slower signals should use a slower group, so they don't cost
+ * fast-thread CPU time and CAN bandwidth.
+ */
+public enum SignalGroup {
+    /** Drive, steer and gyro signals. Phoenix 6 signals in this group are sampled in sync by a dedicated thread. */
+    ODOMETRY(ODOMETRY_FREQUENCY_HERTZ),
+    /** Mechanism positions, velocities, voltages and targets. */
+    MECHANISM(100),
+    /** Currents, temperatures and other slowly changing signals. */
+    SLOW(50);
+
+    private final double frequencyHertz;
+
+    SignalGroup(double frequencyHertz) {
+        this.frequencyHertz = frequencyHertz;
+    }
+
+    public double getFrequencyHertz() {
+        return frequencyHertz;
+    }
+}
@@ -0,0 +1,92 @@
+package frc.lib.generic;
+
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.Threads;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * How the {@link OdometryThread}'s odometry sampling threads are scheduled on the roboRIO: the Phoenix thread, and the
+ * Notifier of {@link SignalGroup#ODOMETRY}. Slower groups always use the default scheduling, so they don't take CPU time
+ * from the main loop at real-time priority.
+ * <p>
+ * By default they are plain Java threads, sharing both cores with the main loop, NetworkTables and the GC.
+ * Only applies to real robots, simulation always uses the default scheduling.
+ */
+public enum ThreadScheduling {
+    /** Plain Java threads. */
+    DEFAULT(false, false),
+    /** The sampling threads run at real-time priority. */
+    REAL_TIME(true, false),
+    /** Real-time priority, with the sampling threads pinned to one core and the main robot thread to the other. */
+    REAL_TIME_PINNED(true, true);
+
+    /**
+     * The scheduling a sampling thread actually got.
+     *
+     * @param isRealTime whether the thread runs at real-time priority
+     * @param pinnedCore the core the thread is pinned to, or -1 if it isn't pinned, including when pinning failed
+     */
+    public record AppliedScheduling(boolean isRealTime, int pinnedCore) {
+        public static final AppliedScheduling NONE = new AppliedScheduling(false, -1);
+    }
+
+    private static final int FASTER_THREAD_PRIORITY = 15;
+    private static final int FASTER_THREAD_CORE = 1;
+    private static final int MAIN_THREAD_CORE = 0;
+
+    private final boolean useRealTimePriority;
+    private final boolean shouldPin;
+
+    ThreadScheduling(boolean useRealTimePriority, boolean shouldPin) {
+        this.useRealTimePriority = useRealTimePriority;
+        this.shouldPin = shouldPin;
+    }
+
+    /**
+     * Applies the scheduling to the calling thread, which must be one of the faster thread's sampling threads.
+     *
+     * @return the scheduling the calling thread got
+     */
+    public AppliedScheduling applyToFasterThread() {
+        if (!RobotBase.isReal()) return AppliedScheduling.NONE;
+
+        final boolean isPinned = shouldPin && pinCurrentThread(FASTER_THREAD_CORE);
+        final boolean isRealTime = useRealTimePriority && Threads.setCurrentThreadPriority(true, FASTER_THREAD_PRIORITY);
+
+        return new AppliedScheduling(isRealTime, isPinned ? FASTER_THREAD_CORE : -1);
+    }
+
+    /**
+     * Applies the scheduling to the calling thread, which must be the main robot thread.
+     */
+    public void applyToMainThread() {
+        if (!RobotBase.isReal() || !shouldPin) return;
+
+        pinCurrentThread(MAIN_THREAD_CORE);
+    }
+
+    /**
+     * Java has no thread affinity API, so this sets the affinity of the calling thread's Linux task with taskset.
+     *
+     * @return whether the thread was pinned
+     */
+    private static boolean pinCurrentThread(int core) {
+        try {
+            final String threadId = Files.readSymbolicLink(Path.of("/proc/thread-self")).getFileName().toString();
+            final Process process = new ProcessBuilder("taskset", "-p", "-c", Integer.toString(core), threadId).start();
+
+            if (process.waitFor() == 0) return true;
+
+            new IllegalStateException("taskset failed to pin thread " + threadId + " to core " + core).printStackTrace();
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,168 @@
+package frc.lib.generic.advantagekit;
+
+import edu.wpi.first.util.datalog.DataLogReader;
+import edu.wpi.first.util.datalog.DataLogRecord;
+import frc.robot.Main;
+import org.littletonrobotics.junction.LogFileUtil;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Replays every log in a directory, each in its own JVM, in parallel across all cores, and writes a summary CSV with the
+ * final value of chosen keys in every replayed log. Used for checking changes (e.g. to the pose estimator) against a whole
+ * event's logs at once.
+ * <p>
+ * Usage: {@code ./gradlew batchReplay -PreplayArgs="<log directory> <summary csv> <key> [key ...]"}, where keys are full
+ * log keys such as {@code ReplayOutputs/Odometry/ExtrapolatedSamples}. Quote arguments that contain spaces, e.g.
+ * {@code -PreplayArgs="'/home/me/event logs' summary.csv ReplayOutputs/Odometry/ExtrapolatedSamples"}.
+ * <p>
+ * Outputs recomputed by the replayed code are under {@code ReplayOutputs/}. The {@code RealOutputs/} of a {@code _replay} log
+ * are the original log's values, copied over by AdvantageKit, so they don't change with the code.
+ * <p>
+ * Each replay runs in REPLAY mode as fast as possible (see {@link frc.robot.GlobalConstants#SHOULD_REPLAY_AS_FAST_AS_POSSIBLE})
+ * and writes its {@code _replay} log next to the original.
+ */
+public class BatchReplay {
+    private static final String LOG_FILE_EXTENSION = ".wpilog";
+    private static final String REPLAY_SUFFIX = "_replay";
+    private static final String THROUGHPUT_REPORT_PREFIX = "Replayed ";
+    private static final String ORIGINAL_OUTPUTS_PREFIX = "RealOutputs/";
+
+    private record ReplayResult(File log, int exitCode, String throughput, Map<String, String> finalValues) { }
+
+    public static void main(String... args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: BatchReplay <log directory> <summary csv> <key> [key ...]");
+            System.exit(1);
+        }
+
+        final File[] logs = new File(args[0]).listFiles((directory, name) ->
+                name.endsWith(LOG_FILE_EXTENSION) && !name.endsWith(REPLAY_SUFFIX + LOG_FILE_EXTENSION));
+
+        if (logs == null || logs.length == 0) {
+            System.err.println("No logs to replay in " + args[0]);
+            System.exit(1);
+        }
+
+        Arrays.sort(logs, Comparator.comparing(File::getName));
+
+        final List<String> keys = List.of(args).subList(2, args.length);
+
+        for (String key : keys) {
+            if (key.startsWith(ORIGINAL_OUTPUTS_PREFIX))
+                System.err.println("Warning: " + key + " holds the original log's values, use ReplayOutputs/ for the replayed ones");
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        final List<Future<ReplayResult>> results = new ArrayList<>();
+
+        for (File log : logs) results.add(executor.submit(() -> replay(log, keys)));
+
+        try (PrintWriter summary = new PrintWriter(args[1])) {
+            summary.println("log,exit code,throughput," + String.join(",", keys));
+
+            for (Future<ReplayResult> futureResult : results) {
+                final ReplayResult result = futureResult.get();
+
+                summary.println(toCsvCell(result.log().getName()) + "," + result.exitCode() + "," + toCsvCell(result.throughput()) + "," +
+                        keys.stream().map(key -> toCsvCell(result.finalValues().getOrDefault(key, ""))).collect(Collectors.joining(",")));
+
+                System.out.println("Replayed " + result.log().getName() + " (exit code " + result.exitCode() + ")");
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static ReplayResult replay(File log, List<String> keys) throws IOException, InterruptedException {
+        final ProcessBuilder processBuilder = new ProcessBuilder(
+                new File(System.getProperty("java.home"), "bin/java").getPath(),
+                "-Djava.library.path=" + System.getProperty("java.library.path"),
+                "-Drobot.mode=REPLAY",
+                "-cp", System.getProperty("java.class.path"),
+                Main.class.getName()
+        );
+
+        processBuilder.environment().put("AKIT_LOG_PATH", log.getAbsolutePath());
+        processBuilder.redirectErrorStream(true);
+
+        // The replay picks the first free path, so this must be resolved before it starts
+        final File replayLog = new File(LogFileUtil.addPathSuffix(log.getAbsolutePath(), REPLAY_SUFFIX));
+        final Process process = processBuilder.start();
+        String throughput = "";
+
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+
+            while ((line = output.readLine()) != null) {
+                if (line.startsWith(THROUGHPUT_REPORT_PREFIX)) throughput = line;
+            }
+        }
+
+        final int exitCode = process.waitFor();
+
+        return new ReplayResult(log, exitCode, throughput, replayLog.isFile() ? readFinalValues(replayLog, keys) : Map.of());
+    }
+
+    /**
+     * @return the last value of each key in the log, as text. Keys of unsupported types (e.g. structs) are left out
+     */
+    private static Map<String, String> readFinalValues(File log, List<String> keys) throws IOException {
+        final DataLogReader reader = new DataLogReader(log.getPath());
+        final Map<Integer, String> keysByEntry = new HashMap<>();
+        final Map<Integer, String> typesByEntry = new HashMap<>();
+        final Map<String, String> finalValues = new HashMap<>();
+
+        if (!reader.isValid()) return finalValues;
+
+        for (DataLogRecord record : reader) {
+            if (record.isStart()) {
+                final DataLogRecord.StartRecordData startData = record.getStartData();
+
+                final String key = startData.name.startsWith("/") ? startData.name.substring(1) : startData.name;
+
+                if (keys.contains(key)) {
+                    keysByEntry.put(startData.entry, key);
+                    typesByEntry.put(startData.entry, startData.type);
+                }
+
+                continue;
+            }
+
+            if (record.isControl() || !keysByEntry.containsKey(record.getEntry())) continue;
+
+            final String value = switch (typesByEntry.get(record.getEntry())) {
+                case "double" -> Double.toString(record.getDouble());
+                case "float" -> Float.toString(record.getFloat());
+                case "int64" -> Long.toString(record.getInteger());
+                case "boolean" -> Boolean.toString(record.getBoolean());
+                case "string" -> record.getString();
+                case "double[]" -> Arrays.stream(record.getDoubleArray()).mapToObj(Double::toString).collect(Collectors.joining(";"));
+                default -> null;
+            };
+
+            if (value != null) finalValues.put(keysByEntry.get(record.getEntry()), value);
+        }
+
+        return finalValues;
+    }
+
+    private static String toCsvCell(String value) {
+        if (!value.contains(",") && !value.contains("\"")) return value;
+
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
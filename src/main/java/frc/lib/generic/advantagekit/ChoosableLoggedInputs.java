@@ -4,4 +4,23 @@ import org.littletonrobotics.junction.inputs.LoggableInputs;
 
 public interface ChoosableLoggedInputs extends LoggableInputs {
     void setSignalsToLog(boolean[] signalsToLog);
+
+    /**
+     * See {@link LoggingPolicy.Type#THREADED_ONLY}.
+     */
+    void setThreadedOnly(boolean isThreadedOnly);
+
+    /**
+     * Only logs the main loop value of a signal once it moved further than the epsilon, see {@link DeltaEncoder}.
+     *
+     * @param signalIndex the index of the signal's main loop value in the signals to log
+     */
+    void setLoggingEpsilon(int signalIndex, double epsilon);
+
+    /**
+     * @return the latest sample, or the fallback if there are none
+     */
+    static double getLatestSample(double[] samples, double fallback) {
+        return samples.length == 0 ? fallback : samples[samples.length - 1];
+    }
 }
@@ -0,0 +1,51 @@
+package frc.lib.generic.advantagekit;
+
+import org.littletonrobotics.junction.LogTable;
+
+/**
+ * Holds logged values until they move further than their signal's epsilon, so small changes aren't written to the log.
+ * <p>
+ * The log writers only write keys whose value changed since the previous cycle, so a held value costs nothing. Held values
+ * are also what the robot code sees, so it sees exactly what's in the log, and {@code fromLog} carries them forward in replay
+ * without knowing the epsilons. Putting the same value twice in a cycle gives the same result, so the inputs can be
+ * compared before logging (see {@link LoggingPolicy.Type#ON_CHANGE}).
+ * <p>
+ * Signals with an epsilon of 0, the default, are never held.
+ */
+public class DeltaEncoder {
+    private final double[] epsilons;
+    private final double[] heldValues;
+    private final boolean[] hasValue;
+
+    /**
+     * @param signalCount the amount of signals. Signal indices must be between 0 and signalCount - 1
+     */
+    public DeltaEncoder(int signalCount) {
+        epsilons = new double[signalCount];
+        heldValues = new double[signalCount];
+        hasValue = new boolean[signalCount];
+    }
+
+    /**
+     * @param epsilon how far the signal must move from its held value to be written again, in the signal's units
+     */
+    public void setEpsilon(int signalIndex, double epsilon) {
+        epsilons[signalIndex] = Math.max(epsilon, 0);
+    }
+
+    /**
+     * Puts the value in the table, or the held value if the value is within the epsilon of it.
+     *
+     * @return the value that was put, which the robot code should use
+     */
+    public double put(LogTable table, String key, int signalIndex, double value) {
+        if (!hasValue[signalIndex] || !(Math.abs(value - heldValues[signalIndex]) < epsilons[signalIndex])) {
+            heldValues[signalIndex] = value;
+            hasValue[signalIndex] = true;
+        }
+
+        table.put(key, heldValues[signalIndex]);
+
+        return heldValues[signalIndex];
+    }
+}
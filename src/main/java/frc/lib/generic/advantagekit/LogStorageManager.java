@@ -0,0 +1,219 @@
+package frc.lib.generic.advantagekit;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import org.littletonrobotics.junction.LogDataReceiver;
+import org.littletonrobotics.junction.LogTable;
+import org.littletonrobotics.junction.Logger;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps a log directory within a disk budget, so logging can stay on without filling the roboRIO's flash.
+ * <p>
+ * Logs of previous sessions are compressed to {@code .wpilog.gz} (decompress them before opening them in AdvantageScope), and
+ * the oldest ones are deleted once the directory goes over the budget, or the drive runs low on space.
+ * The log of the current session is never deleted. Instead, once deleting every previous log isn't enough to keep the minimum
+ * free space, the writer passed through {@link #limit(LogDataReceiver)} is stopped for the rest of the session.
+ * All of this happens on a low priority background thread, so the main loop never waits on the disk. The log writer itself
+ * writes on AdvantageKit's receiver thread.
+ */
+public class LogStorageManager {
+    private static final String USB_LOG_DIRECTORY = "/U/logs";
+    private static final String LOG_FILE_EXTENSION = ".wpilog";
+    private static final String COMPRESSED_LOG_FILE_EXTENSION = ".wpilog.gz";
+    private static final long MAINTENANCE_PERIOD_MILLISECONDS = 30_000;
+    /** The current session's log keeps growing between maintenances, so the free space is checked more often. */
+    private static final long FREE_SPACE_CHECK_PERIOD_MILLISECONDS = 1_000;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final File logDirectory;
+    private final long budgetBytes;
+    private final long minimumFreeBytes;
+    /** The logs that existed before this session, oldest first. Only touched by the maintenance thread. */
+    private final List<File> previousLogs;
+
+    private volatile boolean isOverBudget = false;
+    private volatile long directoryBytes = 0;
+    private volatile boolean isWriterStopped = false;
+
+    /**
+     * Starts maintaining the directory. Must be constructed before the log writer creates this session's log.
+     *
+     * @param logDirectory     the directory the log writer writes to
+     * @param budgetBytes      the most the logs in the directory may take together
+     * @param minimumFreeBytes the least free space to leave on the drive
+     */
+    public LogStorageManager(String logDirectory, long budgetBytes, long minimumFreeBytes) {
+        this.logDirectory = new File(logDirectory);
+        this.budgetBytes = budgetBytes;
+        this.minimumFreeBytes = minimumFreeBytes;
+
+        if (!this.logDirectory.isDirectory() && !this.logDirectory.mkdirs())
+            new IOException("Couldn't create log directory " + logDirectory).printStackTrace();
+
+        previousLogs = new ArrayList<>(List.of(listLogs()));
+        previousLogs.sort(Comparator.comparingLong(File::lastModified));
+
+        final Thread maintenanceThread = new Thread(this::maintain, "LogStorageManager");
+        maintenanceThread.setDaemon(true);
+        maintenanceThread.setPriority(Thread.MIN_PRIORITY);
+        maintenanceThread.start();
+    }
+
+    /**
+     * @param fallbackDirectory the directory to use when there's no USB drive
+     * @return the USB drive's log directory if a USB drive is plugged in, otherwise the fallback directory
+     */
+    public static String selectLogDirectory(String fallbackDirectory) {
+        final File usbDrive = new File(USB_LOG_DIRECTORY).getParentFile();
+
+        return usbDrive.isDirectory() && usbDrive.canWrite() ? USB_LOG_DIRECTORY : fallbackDirectory;
+    }
+
+    /**
+     * Wraps the log writer of this directory, so it stops writing once the drive can't keep the minimum free space.
+     *
+     * @param logWriter the writer that writes to this directory
+     * @return the receiver to add to the {@link Logger} instead of the writer
+     */
+    public LogDataReceiver limit(LogDataReceiver logWriter) {
+        return new LogDataReceiver() {
+            /** Only touched by the receiver thread. */
+            private boolean hasEnded = false;
+
+            @Override
+            public void start() {
+                logWriter.start();
+            }
+
+            @Override
+            public void putTable(LogTable table) throws InterruptedException {
+                if (!isWriterStopped) {
+                    logWriter.putTable(table);
+                    return;
+                }
+
+                end();
+            }
+
+            @Override
+            public void end() {
+                if (hasEnded) return;
+
+                hasEnded = true;
+                logWriter.end();
+            }
+        };
+    }
+
+    /**
+     * Logs the state of the directory. Call this from the main loop.
+     */
+    public void log() {
+        Logger.recordOutput("Logging/DirectoryBytes", directoryBytes);
+        Logger.recordOutput("Logging/IsOverBudget", isOverBudget);
+        Logger.recordOutput("Logging/IsWriterStopped", isWriterStopped);
+    }
+
+    private void maintain() {
+        long lastMaintenanceMilliseconds = System.currentTimeMillis() - MAINTENANCE_PERIOD_MILLISECONDS;
+
+        while (!Thread.currentThread().isInterrupted()) {
+            final long currentMilliseconds = System.currentTimeMillis();
+
+            if (currentMilliseconds - lastMaintenanceMilliseconds >= MAINTENANCE_PERIOD_MILLISECONDS) {
+                compressPreviousLogs();
+                enforceBudget();
+                lastMaintenanceMilliseconds = currentMilliseconds;
+            } else if (logDirectory.getUsableSpace() < minimumFreeBytes) {
+                enforceBudget();
+            }
+
+            if (!isWriterStopped && previousLogs.isEmpty() && logDirectory.getUsableSpace() < minimumFreeBytes)
+                stopWriter();
+
+            try {
+                Thread.sleep(FREE_SPACE_CHECK_PERIOD_MILLISECONDS);
+            } catch (InterruptedException exception) {
+                return;
+            }
+        }
+    }
+
+    private void stopWriter() {
+        isWriterStopped = true;
+
+        DriverStation.reportError("Stopped logging to " + logDirectory + ", less than " + minimumFreeBytes / (1024 * 1024) +
+                " MB are free and there are no more previous logs to delete", false);
+    }
+
+    private void compressPreviousLogs() {
+        for (int i = 0; i < previousLogs.size(); i++) {
+            final File log = previousLogs.get(i);
+
+            if (!log.getName().endsWith(LOG_FILE_EXTENSION)) continue;
+
+            final File compressedLog = new File(log.getPath() + ".gz");
+
+            try {
+                compress(log, compressedLog);
+            } catch (IOException exception) {
+                exception.printStackTrace();
+                compressedLog.delete();
+                continue;
+            }
+
+            compressedLog.setLastModified(log.lastModified());
+            log.delete();
+            previousLogs.set(i, compressedLog);
+        }
+    }
+
+    private void enforceBudget() {
+        long totalBytes = getTotalBytes();
+
+        while ((totalBytes > budgetBytes || logDirectory.getUsableSpace() < minimumFreeBytes) && !previousLogs.isEmpty()) {
+            final File oldestLog = previousLogs.remove(0);
+            final long oldestLogBytes = oldestLog.length();
+
+            if (oldestLog.delete()) totalBytes -= oldestLogBytes;
+        }
+
+        directoryBytes = totalBytes;
+        isOverBudget = totalBytes > budgetBytes || logDirectory.getUsableSpace() < minimumFreeBytes;
+    }
+
+    private long getTotalBytes() {
+        long totalBytes = 0;
+
+        for (File log : listLogs()) totalBytes += log.length();
+
+        return totalBytes;
+    }
+
+    private File[] listLogs() {
+        final File[] logs = logDirectory.listFiles((directory, name) ->
+                name.endsWith(LOG_FILE_EXTENSION) || name.endsWith(COMPRESSED_LOG_FILE_EXTENSION));
+
+        return logs == null ? new File[0] : logs;
+    }
+
+    private static void compress(File source, File destination) throws IOException {
+        try (InputStream input = new FileInputStream(source);
+             OutputStream output = new GZIPOutputStream(new FileOutputStream(destination), COPY_BUFFER_SIZE) {{
+                 def.setLevel(Deflater.BEST_SPEED);
+             }}) {
+            input.transferTo(output);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package frc.lib.generic.advantagekit;
+
+import edu.wpi.first.wpilibj.Notifier;
+import org.littletonrobotics.junction.Logger;
+
+import java.io.File;
+
+/**
+ * Measures how fast the log files in a directory grow, to see how much the logging settings (e.g. {@link DeltaEncoder}
+ * epsilons, {@link LoggingPolicy logging policies}) save on the roboRIO's flash.
+ * <p>
+ * The directory is measured by its own Notifier, so the main loop doesn't wait on the file system. The log writer buffers
+ * its output, so the rate is only accurate over a few seconds.
+ */
+public class LogWriteRateMonitor {
+    private static final double MEASUREMENT_PERIOD_SECONDS = 1.0;
+    private static final String LOG_FILE_EXTENSION = ".wpilog";
+
+    private final File logDirectory;
+    private final long startTimeMilliseconds = System.currentTimeMillis();
+    private final Notifier notifier;
+
+    private long lastTotalBytes = -1;
+    private volatile double bytesPerSecond = 0;
+
+    /**
+     * Starts measuring the directory.
+     *
+     * @param logDirectory the directory the log writer writes to
+     */
+    public LogWriteRateMonitor(String logDirectory) {
+        this.logDirectory = new File(logDirectory);
+
+        notifier = new Notifier(this::measure);
+        notifier.setName("LogWriteRateMonitor");
+        notifier.startPeriodic(MEASUREMENT_PERIOD_SECONDS);
+    }
+
+    /**
+     * Logs the latest rate. Call this from the main loop.
+     */
+    public void log() {
+        Logger.recordOutput("Logging/WriteRateBytesPerSecond", bytesPerSecond);
+    }
+
+    private void measure() {
+        final File[] logFiles = logDirectory.listFiles((directory, name) -> name.endsWith(LOG_FILE_EXTENSION));
+
+        if (logFiles == null) return;
+
+        long totalBytes = 0;
+
+        for (File logFile : logFiles) {
+            // Logs of previous sessions may be compressed or deleted meanwhile, see LogStorageManager
+            if (logFile.lastModified() >= startTimeMilliseconds) totalBytes += logFile.length();
+        }
+
+        if (lastTotalBytes >= 0) bytesPerSecond = Math.max(totalBytes - lastTotalBytes, 0) / MEASUREMENT_PERIOD_SECONDS;
+
+        lastTotalBytes = totalBytes;
+    }
+}
@@ -6,7 +6,32 @@ public interface LoggableHardware extends AutoCloseable {
     /**
      * Call this method periodically
      */
-    void periodic();
+    default void periodic() {
+        updateInputs();
+        logInputs();
+    }
+
+    /**
+     * Refresh the inputs from the hardware, without logging them
+     */
+    void updateInputs();
+
+    /**
+     * Log the latest inputs
+     */
+    void logInputs();
+
+    /**
+     * @return Whether the inputs hold samples from the faster thread, which must be drained every cycle
+     */
+    default boolean hasThreadedInputs() {
+        return false;
+    }
+
+    /**
+     * @return The key the inputs are logged under
+     */
+    String getLogKey();
 
     /**
      * Get latest sensor input data
@@ -15,6 +40,13 @@ public interface LoggableHardware extends AutoCloseable {
      */
     LoggableInputs getInputs();
 
+    /**
+     * @return How often the inputs are logged, see {@link LoggingPolicy}
+     */
+    default LoggingPolicy getLoggingPolicy() {
+        return LoggingPolicy.FULL;
+    }
+
     @Override
     default void close() {}
 }
@@ -0,0 +1,52 @@
+package frc.lib.generic.advantagekit;
+
+/**
+ * How often a device's inputs are logged, enforced by {@link frc.lib.generic.hardware.HardwareManager HardwareManager}.
+ * <p>
+ * Every policy is replay-safe: whatever the robot code sees on a cycle is either logged on that cycle, or equal to what was
+ * last logged. In replay, every device is read every cycle, so the policy doesn't need to be known there.
+ *
+ * @param type   the policy
+ * @param period for {@link Type#EVERY_NTH_CYCLE}, how many cycles apart the device is updated
+ */
+public record LoggingPolicy(Type type, int period) {
+    public enum Type {
+        /** Update and log the device every cycle. */
+        FULL,
+        /**
+         * Only update and log the device every {@link #period()} cycles. In between, the robot code sees the last logged
+         * inputs. A device with threaded inputs would show the same samples again as if they were new, so it's reported and
+         * updated every cycle instead, as with {@link #FULL}.
+         */
+        EVERY_NTH_CYCLE,
+        /**
+         * Update the device every cycle, but only log it when its inputs changed. Threaded samples always count as a change.
+         * Unchanged inputs are the same as what was last logged, so the robot code sees the same values as in replay.
+         */
+        ON_CHANGE,
+        /**
+         * Log the threaded arrays instead of the main loop values of signals sampled by the faster thread.
+         * The main loop value of such a signal becomes its latest threaded sample, both when logging and in replay.
+         * Devices without threaded inputs log every value, as with {@link #FULL}.
+         */
+        THREADED_ONLY
+    }
+
+    public static final LoggingPolicy FULL = new LoggingPolicy(Type.FULL, 1);
+    public static final LoggingPolicy ON_CHANGE = new LoggingPolicy(Type.ON_CHANGE, 1);
+    public static final LoggingPolicy THREADED_ONLY = new LoggingPolicy(Type.THREADED_ONLY, 1);
+
+    public LoggingPolicy {
+        if (period < 1) {
+            new IllegalArgumentException("Logging period must be at least 1 cycle, got " + period).printStackTrace();
+            period = 1;
+        }
+    }
+
+    /**
+     * @param period how many cycles apart the device is updated and logged
+     */
+    public static LoggingPolicy everyNthCycle(int period) {
+        return new LoggingPolicy(Type.EVERY_NTH_CYCLE, period);
+    }
+}
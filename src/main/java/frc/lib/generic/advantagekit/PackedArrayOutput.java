@@ -0,0 +1,97 @@
+package frc.lib.generic.advantagekit;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import frc.lib.util.SampleArrayCache;
+import org.littletonrobotics.junction.Logger;
+
+import java.util.List;
+
+/**
+ * An output that's logged as a flat {@code double[]}, packed into reused arrays instead of logging freshly allocated objects.
+ * <p>
+ * The layouts are the ones AdvantageScope decodes from number arrays: poses are {@code [x, y, rotation radians]}, and
+ * swerve module states are {@code [angle radians, speed]}, element after element. Arrays are handed out by a
+ * {@link SampleArrayCache}, so the log receiver thread can still read the arrays of the cycles it didn't write yet.
+ * <p>
+ * The cache must only be asked for one array per cycle. An output that's recorded again in the same cycle (e.g. odometry,
+ * which also runs in {@code simulationPeriodic}) replaces its earlier value before the cycle's table is queued, so it
+ * repacks that cycle's array instead of taking another one.
+ */
+public class PackedArrayOutput {
+    public static final int POSE_2D_LENGTH = 3;
+    public static final int MODULE_STATE_LENGTH = 2;
+
+    private final String key;
+    private final int valuesPerElement;
+    private final int maximumElements;
+    private final SampleArrayCache arrays;
+
+    private double[] packedValues = new double[0];
+    /** The cycle {@link #packedValues} was handed out on, in {@link Logger#getTimestamp()} microseconds. */
+    private long packedValuesCycle = -1;
+
+    /**
+     * @param key              the output's log key
+     * @param valuesPerElement the length of one packed element, e.g. {@link #POSE_2D_LENGTH}
+     * @param maximumElements  the most elements that are packed without allocating. Longer arrays are still logged, but
+     *                         allocate a new array
+     */
+    public PackedArrayOutput(String key, int valuesPerElement, int maximumElements) {
+        this.key = key;
+        this.valuesPerElement = valuesPerElement;
+        this.maximumElements = maximumElements;
+
+        arrays = new SampleArrayCache(valuesPerElement * maximumElements);
+    }
+
+    /**
+     * Starts packing a new array. Set every element, then {@link #record()} it.
+     */
+    public void start(int elementCount) {
+        final int length = elementCount * valuesPerElement;
+        final long cycle = Logger.getTimestamp();
+
+        if (cycle == packedValuesCycle && packedValues.length == length) return;
+
+        packedValues = elementCount <= maximumElements ? arrays.get(length) : new double[length];
+        packedValuesCycle = cycle;
+    }
+
+    public void setPose(int index, Pose2d pose) {
+        setPose(index, pose.getX(), pose.getY(), pose.getRotation().getRadians());
+    }
+
+    public void setPose(int index, double x, double y, double thetaRadians) {
+        final int offset = index * valuesPerElement;
+
+        packedValues[offset] = x;
+        packedValues[offset + 1] = y;
+        packedValues[offset + 2] = thetaRadians;
+    }
+
+    public void setModuleState(int index, double angleRadians, double speedMetersPerSecond) {
+        final int offset = index * valuesPerElement;
+
+        packedValues[offset] = angleRadians;
+        packedValues[offset + 1] = speedMetersPerSecond;
+    }
+
+    public void record() {
+        Logger.recordOutput(key, packedValues);
+    }
+
+    public void recordPose(Pose2d pose) {
+        start(1);
+        setPose(0, pose);
+        record();
+    }
+
+    public void recordPoses(List<Pose2d> poses) {
+        start(poses.size());
+
+        for (int i = 0; i < poses.size(); i++)
+            setPose(i, poses.get(i));
+
+        record();
+    }
+}
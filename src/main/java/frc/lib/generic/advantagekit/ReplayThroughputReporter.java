@@ -0,0 +1,39 @@
+package frc.lib.generic.advantagekit;
+
+import org.littletonrobotics.junction.Logger;
+
+/**
+ * Counts replayed cycles, and prints the replay's throughput when the replay ends.
+ * <p>
+ * AdvantageKit exits the JVM once the replay log runs out, so the report is printed from a shutdown hook.
+ */
+public class ReplayThroughputReporter {
+    private final long startNanoseconds = System.nanoTime();
+
+    private volatile long cycleCount = 0;
+    private volatile long firstLogTimestampMicroseconds = -1, lastLogTimestampMicroseconds = -1;
+
+    public ReplayThroughputReporter() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::report, "ReplayThroughputReporter"));
+    }
+
+    /**
+     * Counts a replayed cycle. Call this once every cycle.
+     */
+    public void recordCycle() {
+        final long logTimestampMicroseconds = Logger.getTimestamp();
+
+        if (firstLogTimestampMicroseconds < 0) firstLogTimestampMicroseconds = logTimestampMicroseconds;
+
+        lastLogTimestampMicroseconds = logTimestampMicroseconds;
+        cycleCount++;
+    }
+
+    private void report() {
+        final double elapsedSeconds = (System.nanoTime() - startNanoseconds) / 1.0e9;
+        final double replayedSeconds = (lastLogTimestampMicroseconds - firstLogTimestampMicroseconds) / 1.0e6;
+
+        System.out.printf("Replayed %d cycles (%.1f s of log) in %.1f s: %.0f cycles per second, %.1fx real time%n",
+                cycleCount, replayedSeconds, elapsedSeconds, cycleCount / elapsedSeconds, replayedSeconds / elapsedSeconds);
+    }
+}
@@ -1,20 +1,33 @@
 package frc.lib.generic.hardware;
 
+import com.ctre.phoenix6.BaseStatusSignal;
 import edu.wpi.first.wpilibj.Filesystem;
 import frc.lib.generic.OdometryThread;
+import frc.lib.generic.advantagekit.ChoosableLoggedInputs;
 import frc.lib.generic.advantagekit.LoggableHardware;
+import frc.lib.generic.advantagekit.LogStorageManager;
+import frc.lib.generic.advantagekit.LogWriteRateMonitor;
+import frc.lib.generic.advantagekit.LoggingPolicy;
+import frc.lib.generic.advantagekit.ReplayThroughputReporter;
 import frc.lib.generic.simulation.GenericSimulation;
 import frc.robot.GlobalConstants;
 import org.littletonrobotics.junction.LogFileUtil;
+import org.littletonrobotics.junction.LogTable;
 import org.littletonrobotics.junction.LoggedRobot;
 import org.littletonrobotics.junction.Logger;
 import org.littletonrobotics.junction.networktables.NT4Publisher;
 import org.littletonrobotics.junction.wpilog.WPILOGReader;
+import org.littletonrobotics.junction.inputs.LoggableInputs;
 import org.littletonrobotics.junction.wpilog.WPILOGWriter;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static frc.robot.GlobalConstants.*;
 
@@ -27,12 +40,26 @@ public enum HardwareManager {
     private static final List<LoggableHardware> hardware = new ArrayList<>();
     private static final List<Runnable> periodicRunnable = new ArrayList<>();
 
+    private static final Map<String, List<BaseStatusSignal>> ctreSignalsByBus = new LinkedHashMap<>();
+    /** One array per CAN bus, rebuilt on registration so {@link #update()} doesn't allocate. */
+    private static BaseStatusSignal[][] ctreSignalArrays = new BaseStatusSignal[0][];
+
+    /** Devices whose {@link LoggingPolicy#everyNthCycle} was already reported, since they have threaded inputs. */
+    private static final Set<LoggableHardware> devicesWithRejectedPolicies = new HashSet<>();
+    /** The change detector of each {@link LoggingPolicy#ON_CHANGE} device, by index in {@link #hardware}. */
+    private static final List<InputsChangeDetector> changeDetectors = new ArrayList<>();
+    private static long cycleCount = 0;
+
+    private static final HardwareProfiler profiler = SHOULD_PROFILE_HARDWARE ? new HardwareProfiler() : null;
+
     /**
      * Initialize and start logging
      * <p>
      * Call this at the beginning of <code>robotInit()</code>.
      * <p>
-     * To enable replay, set the variable <code>CURRENT_MODE=REPLAY</code>
+     * To enable replay, set the variable <code>CURRENT_MODE=REPLAY</code>.
+     * Replays don't publish to NetworkTables, and with <code>SHOULD_REPLAY_AS_FAST_AS_POSSIBLE</code> they run as fast as
+     * the CPU allows. Run them with <code>./gradlew simulateJava -Pheadless</code> to skip the simulation GUI.
      *
      * @param robot Robot object
      */
@@ -42,10 +69,25 @@ public enum HardwareManager {
         if (CURRENT_MODE == GlobalConstants.Mode.REAL || CURRENT_MODE == GlobalConstants.Mode.SIMULATION) {
             Logger.addDataReceiver(new NT4Publisher());
 
-            if (SHOULD_WRITE_LOGS)
-                Logger.addDataReceiver(new WPILOGWriter(logPath));
+            LogStorageManager logStorageManager = null;
+
+            if (LOG_WRITER_MODE == GlobalConstants.LogWriterMode.BOUNDED) {
+                logPath = LogStorageManager.selectLogDirectory(logPath);
+                logStorageManager = new LogStorageManager(logPath, LOG_DISK_BUDGET_BYTES, LOG_MINIMUM_FREE_BYTES);
+                addCallback(logStorageManager::log);
+            }
+
+            if (LOG_WRITER_MODE != GlobalConstants.LogWriterMode.DISABLED) {
+                final WPILOGWriter logWriter = new WPILOGWriter(logPath);
+
+                Logger.addDataReceiver(logStorageManager == null ? logWriter : logStorageManager.limit(logWriter));
+                addCallback(new LogWriteRateMonitor(logPath)::log);
+            }
         } else {
-            robot.setUseTiming(true);
+            robot.setUseTiming(!SHOULD_REPLAY_AS_FAST_AS_POSSIBLE);
+
+            if (SHOULD_REPLAY_AS_FAST_AS_POSSIBLE) addCallback(new ReplayThroughputReporter()::recordCycle);
+
             logPath = LogFileUtil.findReplayLog();
 
             final String logWriterPath = LogFileUtil.addPathSuffix(logPath, "_replay");
@@ -67,6 +109,30 @@ public enum HardwareManager {
      */
     public static void addHardware(LoggableHardware... devices) {
         hardware.addAll(Arrays.asList(devices));
+
+        changeDetectors.addAll(Collections.nCopies(devices.length, null));
+
+        if (profiler == null) return;
+
+        for (LoggableHardware device : devices) {
+            profiler.addHardware(device);
+        }
+    }
+
+    /**
+     * Add Phoenix 6 signals to be refreshed every loop, in a single call per CAN bus, before any hardware is updated.
+     * <p>
+     * Devices should only read the values of registered signals, rather than refreshing them themselves.
+     *
+     * @param canBus  the name of the CAN bus the signals' device is on
+     * @param signals the signals to refresh
+     */
+    public static void registerCTRESignals(String canBus, BaseStatusSignal... signals) {
+        ctreSignalsByBus.computeIfAbsent(canBus, bus -> new ArrayList<>()).addAll(Arrays.asList(signals));
+
+        ctreSignalArrays = ctreSignalsByBus.values().stream()
+                .map(busSignals -> busSignals.toArray(new BaseStatusSignal[0]))
+                .toArray(BaseStatusSignal[][]::new);
     }
 
     /**
@@ -84,20 +150,136 @@ public enum HardwareManager {
      * Call this periodically, preferably in the beginning of <code>robotPeriodic()</code> every loop
      */
     public static void update() {
-        //TODO: Only if hardware should use lock, USE LOCK
-        FASTER_THREAD_LOCK.lock();
+        final long start = System.nanoTime();
+
+        OdometryThread.getInstance().captureSnapshot();
+
+        final long refreshStart = System.nanoTime();
+
+        refreshCTRESignals();
 
-        for (LoggableHardware loggableHardware : hardware) {
-            loggableHardware.periodic();
+        if (profiler != null) profiler.recordCTRERefresh(System.nanoTime() - refreshStart);
+
+        for (int i = 0; i < hardware.size(); i++) {
+            updateDevice(i, hardware.get(i));
         }
 
         OdometryThread.getInstance().updateLatestTimestamps();
 
-        FASTER_THREAD_LOCK.unlock();
+        if (profiler != null) profiler.recordUpdate(System.nanoTime() - start);
+
+        cycleCount++;
 
         periodicRunnable.forEach(Runnable::run);
     }
 
+    /**
+     * Updates and logs a device according to its {@link LoggingPolicy}. In replay every device is read every cycle, which
+     * gives the same inputs as the policy did, since cycles that weren't logged leave the last logged values in the log.
+     */
+    private static void updateDevice(int index, LoggableHardware device) {
+        final LoggingPolicy policy = getLoggingPolicy(device);
+
+        if (policy.type() == LoggingPolicy.Type.EVERY_NTH_CYCLE && cycleCount % policy.period() != 0) return;
+
+        if (device.getInputs() instanceof ChoosableLoggedInputs choosableInputs)
+            choosableInputs.setThreadedOnly(policy.type() == LoggingPolicy.Type.THREADED_ONLY);
+
+        final long updateStart = System.nanoTime();
+
+        device.updateInputs();
+
+        final long logStart = System.nanoTime();
+
+        if (policy.type() != LoggingPolicy.Type.ON_CHANGE || haveInputsChanged(index, device)) device.logInputs();
+
+        if (profiler != null) profiler.recordDevice(index, logStart - updateStart, System.nanoTime() - logStart);
+    }
+
+    /**
+     * Threaded signals can be registered after the policy is set, so devices are checked here rather than by the policy.
+     * A skipped cycle would leave the device's last threaded samples in its inputs, where they'd be read again as new, and
+     * its queues would fill up and stop the faster thread, so such a device is updated every cycle instead.
+     */
+    private static LoggingPolicy getLoggingPolicy(LoggableHardware device) {
+        if (CURRENT_MODE == GlobalConstants.Mode.REPLAY) return LoggingPolicy.FULL;
+
+        final LoggingPolicy policy = device.getLoggingPolicy();
+
+        if (policy.type() != LoggingPolicy.Type.EVERY_NTH_CYCLE || !device.hasThreadedInputs()) return policy;
+
+        if (devicesWithRejectedPolicies.add(device)) {
+            new IllegalArgumentException(device.getLogKey() + " has threaded inputs, so it can't skip cycles. Logging it every cycle instead")
+                    .printStackTrace();
+        }
+
+        return LoggingPolicy.FULL;
+    }
+
+    private static boolean haveInputsChanged(int index, LoggableHardware device) {
+        InputsChangeDetector changeDetector = changeDetectors.get(index);
+
+        if (changeDetector == null) {
+            changeDetector = new InputsChangeDetector();
+            changeDetectors.set(index, changeDetector);
+        }
+
+        return changeDetector.haveChanged(device.getInputs());
+    }
+
+    /**
+     * Compares a device's inputs with the last ones logged, value by value.
+     * Inputs with threaded samples always count as changed, so the arrays don't have to be copied to compare them later.
+     * <p>
+     * The inputs are written into one of two tables that are kept for the device, and the tables swap when the inputs
+     * changed, so comparing doesn't allocate a table every cycle.
+     */
+    private static final class InputsChangeDetector {
+        private LogTable lastLoggedTable = new LogTable(0), currentTable = new LogTable(0);
+        private boolean hasLoggedValues = false;
+
+        boolean haveChanged(LoggableInputs inputs) {
+            inputs.toLog(currentTable);
+
+            final Map<String, LogTable.LogValue> values = currentTable.getAll(false);
+
+            for (LogTable.LogValue value : values.values()) {
+                if (isNonEmptyArray(value)) {
+                    hasLoggedValues = false;
+                    return true;
+                }
+            }
+
+            if (hasLoggedValues && values.equals(lastLoggedTable.getAll(false))) return false;
+
+            final LogTable previousTable = lastLoggedTable;
+
+            lastLoggedTable = currentTable;
+            currentTable = previousTable;
+            hasLoggedValues = true;
+
+            return true;
+        }
+
+        private static boolean isNonEmptyArray(LogTable.LogValue value) {
+            return switch (value.type) {
+                case Raw -> value.getRaw().length > 0;
+                case BooleanArray -> value.getBooleanArray().length > 0;
+                case IntegerArray -> value.getIntegerArray().length > 0;
+                case FloatArray -> value.getFloatArray().length > 0;
+                case DoubleArray -> value.getDoubleArray().length > 0;
+                case StringArray -> value.getStringArray().length > 0;
+                default -> false;
+            };
+        }
+    }
+
+    private static void refreshCTRESignals() {
+        for (BaseStatusSignal[] busSignals : ctreSignalArrays) {
+            BaseStatusSignal.refreshAll(busSignals);
+        }
+    }
+
     public static void updateSimulation() {
         GenericSimulation.updateAllSimulations();
     }
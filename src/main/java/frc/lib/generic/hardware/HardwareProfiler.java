@@ -0,0 +1,89 @@
+package frc.lib.generic.hardware;
+
+import frc.lib.generic.advantagekit.LoggableHardware;
+import frc.lib.util.RollingStatistics;
+import org.littletonrobotics.junction.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures how long {@link HardwareManager#update()} spends on every device, to find the devices that blow the loop budget.
+ * <p>
+ * Every device's refresh and {@code Logger.processInputs} are timed separately, as is the whole update. The rolling max and
+ * p99 of the latest {@link #WINDOW_SIZE} loops are published as outputs under "HardwareProfiler/", in milliseconds, once
+ * every {@link #PUBLISH_PERIOD_LOOPS} loops. Publishing isn't included in the measured time.
+ */
+class HardwareProfiler {
+    private static final int WINDOW_SIZE = 250;
+    private static final int PUBLISH_PERIOD_LOOPS = 50;
+    private static final double NANOSECONDS_TO_MILLISECONDS = 1.0e-6;
+    private static final double PERCENTILE = 0.99;
+
+    private static final class DeviceTimings {
+        final RollingStatistics updateNanoseconds = new RollingStatistics(WINDOW_SIZE);
+        final RollingStatistics logNanoseconds = new RollingStatistics(WINDOW_SIZE);
+        final String updateMaxKey, updateP99Key, logMaxKey, logP99Key;
+
+        DeviceTimings(String prefix) {
+            updateMaxKey = prefix + "/UpdateMaxMilliseconds";
+            updateP99Key = prefix + "/UpdateP99Milliseconds";
+            logMaxKey = prefix + "/LogMaxMilliseconds";
+            logP99Key = prefix + "/LogP99Milliseconds";
+        }
+    }
+
+    private final List<DeviceTimings> deviceTimings = new ArrayList<>();
+    private final RollingStatistics ctreRefreshNanoseconds = new RollingStatistics(WINDOW_SIZE);
+    private final RollingStatistics totalNanoseconds = new RollingStatistics(WINDOW_SIZE);
+
+    private int loopsSincePublish = 0;
+
+    void addHardware(LoggableHardware device) {
+        deviceTimings.add(new DeviceTimings("HardwareProfiler/" + device.getLogKey()));
+    }
+
+    /**
+     * @param index the index the device was added at
+     */
+    void recordDevice(int index, long updateNanoseconds, long logNanoseconds) {
+        final DeviceTimings timings = deviceTimings.get(index);
+
+        timings.updateNanoseconds.add(updateNanoseconds);
+        timings.logNanoseconds.add(logNanoseconds);
+    }
+
+    void recordCTRERefresh(long nanoseconds) {
+        ctreRefreshNanoseconds.add(nanoseconds);
+    }
+
+    /**
+     * Records the duration of the whole update, and publishes the statistics if it's time to.
+     */
+    void recordUpdate(long nanoseconds) {
+        totalNanoseconds.add(nanoseconds);
+
+        if (++loopsSincePublish < PUBLISH_PERIOD_LOOPS) return;
+
+        loopsSincePublish = 0;
+        publish();
+    }
+
+    private void publish() {
+        for (DeviceTimings timings : deviceTimings) {
+            record(timings.updateMaxKey, timings.updateNanoseconds.getMax());
+            record(timings.updateP99Key, timings.updateNanoseconds.getPercentile(PERCENTILE));
+            record(timings.logMaxKey, timings.logNanoseconds.getMax());
+            record(timings.logP99Key, timings.logNanoseconds.getPercentile(PERCENTILE));
+        }
+
+        record("HardwareProfiler/CTRERefreshMaxMilliseconds", ctreRefreshNanoseconds.getMax());
+        record("HardwareProfiler/CTRERefreshP99Milliseconds", ctreRefreshNanoseconds.getPercentile(PERCENTILE));
+        record("HardwareProfiler/TotalMaxMilliseconds", totalNanoseconds.getMax());
+        record("HardwareProfiler/TotalP99Milliseconds", totalNanoseconds.getPercentile(PERCENTILE));
+    }
+
+    private static void record(String key, long nanoseconds) {
+        Logger.recordOutput(key, nanoseconds * NANOSECONDS_TO_MILLISECONDS);
+    }
+}
@@ -0,0 +1,89 @@
+package frc.lib.generic.hardware;
+
+import frc.lib.util.SampleArrayCache;
+import frc.lib.util.TimestampedDoubleRingBuffer;
+
+import java.util.Arrays;
+
+/**
+ * The faster-thread queues of one device, indexed by the id of their signal (e.g. {@link frc.lib.generic.hardware.motor.MotorSignal#getId()}).
+ * <p>
+ * Every signal keeps its own sample timestamps, since signals of different {@link frc.lib.generic.SignalGroup}s are
+ * sampled at different rates, and each sample is stamped with its own measurement time.
+ * <p>
+ * Draining copies the samples into reusable arrays, so once warmed up, draining doesn't allocate.
+ */
+public class ThreadedSignalRegistry {
+    private static final double[] EMPTY = new double[0];
+
+    private final TimestampedDoubleRingBuffer[] queues;
+    private final SampleArrayCache[] sampleArrays, timestampArrays;
+    private final double[][] latestSamples, latestTimestamps;
+
+    /** Signal ids in the order they were registered. */
+    private final int[] registrationOrder;
+    private int registeredCount = 0;
+
+    /**
+     * @param signalCount the amount of signals the device has. Signal ids must be between 0 and signalCount - 1
+     */
+    public ThreadedSignalRegistry(int signalCount) {
+        queues = new TimestampedDoubleRingBuffer[signalCount];
+        sampleArrays = new SampleArrayCache[signalCount];
+        timestampArrays = new SampleArrayCache[signalCount];
+        latestSamples = new double[signalCount][];
+        latestTimestamps = new double[signalCount][];
+        registrationOrder = new int[signalCount];
+
+        Arrays.fill(latestSamples, EMPTY);
+        Arrays.fill(latestTimestamps, EMPTY);
+    }
+
+    /**
+     * Registers the queue of a signal. Registering a signal twice replaces its queue.
+     */
+    public void register(int signalId, TimestampedDoubleRingBuffer queue) {
+        if (queues[signalId] == null) registrationOrder[registeredCount++] = signalId;
+
+        queues[signalId] = queue;
+        sampleArrays[signalId] = new SampleArrayCache(queue.capacity());
+        timestampArrays[signalId] = new SampleArrayCache(queue.capacity());
+    }
+
+    public boolean isEmpty() {
+        return registeredCount == 0;
+    }
+
+    /**
+     * Drains every registered queue. The samples are available through {@link #getSamples(int)} and
+     * {@link #getTimestamps(int)} until the next drain.
+     */
+    public void drain() {
+        for (int i = 0; i < registeredCount; i++) {
+            final int signalId = registrationOrder[i];
+            final TimestampedDoubleRingBuffer queue = queues[signalId];
+            final double[] samples = sampleArrays[signalId].get(queue.capturedSize());
+            final double[] timestamps = timestampArrays[signalId].get(samples.length);
+
+            queue.drainTo(samples, timestamps);
+
+            latestSamples[signalId] = samples;
+            latestTimestamps[signalId] = timestamps;
+        }
+    }
+
+    /**
+     * @return the samples of the last drain, or an empty array if the signal isn't registered
+     */
+    public double[] getSamples(int signalId) {
+        return latestSamples[signalId];
+    }
+
+    /**
+     * @return the measurement times of the last drain's samples of the signal, in seconds, or an empty array if the signal
+     * isn't registered
+     */
+    public double[] getTimestamps(int signalId) {
+        return latestTimestamps[signalId];
+    }
+}
@@ -1,6 +1,8 @@
 package frc.lib.generic.hardware.encoder;
 
+import frc.lib.generic.SignalGroup;
 import frc.lib.generic.advantagekit.LoggableHardware;
+import frc.lib.generic.advantagekit.LoggingPolicy;
 import frc.lib.generic.hardware.HardwareManager;
 import frc.robot.GlobalConstants;
 import org.littletonrobotics.junction.Logger;
@@ -12,11 +14,16 @@ import static frc.lib.generic.hardware.encoder.EncoderInputs.ENCODER_INPUTS_LENG
 import static frc.robot.GlobalConstants.CURRENT_MODE;
 
 public class Encoder implements LoggableHardware {
+    private static final boolean[] NO_SIGNALS_TO_LOG = new boolean[ENCODER_INPUTS_LENGTH];
+
     private final EncoderInputs inputs = new EncoderInputs();
     private final String name;
+    private final String logKey;
+    private LoggingPolicy loggingPolicy = LoggingPolicy.FULL;
 
     public Encoder(String name) {
         this.name = name;
+        this.logKey = "Encoders/" + name;
 
         periodic();
         HardwareManager.addHardware(this);
@@ -38,18 +45,60 @@ public class Encoder implements LoggableHardware {
     }
 
     /** Signals are lazily loaded - only these explicity called will be updated. Thus you must call this method. when using a signal.*/
-    public void setupSignalUpdates(EncoderSignal signal, boolean useFasterThread) { }
+    public void setupSignalUpdates(EncoderSignal signal, boolean useFasterThread) {
+        setupSignalUpdates(signal, useFasterThread ? signal.getDefaultGroup() : null);
+    }
+
+    /**
+     * Sets up the signal, sampling it in the given group of the faster thread.
+     *
+     * @param signal the signal to update
+     * @param group  the faster thread group to sample the signal in, or null to only update it in the main loop
+     */
+    public void setupSignalUpdates(EncoderSignal signal, SignalGroup group) { }
 
     public void setupSignalUpdates(EncoderSignal signal) { setupSignalUpdates(signal, false); }
 
-    public boolean configure(EncoderConfiguration encoderConfiguration) { return true; }
+    public boolean configure(EncoderConfiguration encoderConfiguration) {
+        setLoggingPolicy(encoderConfiguration.loggingPolicy);
+        return true;
+    }
 
     protected void refreshInputs(EncoderInputs inputs) { }
 
     @Override
-    public void periodic() {
+    public void updateInputs() {
         refreshInputs(inputs);
-        Logger.processInputs("Encoders/" + name, inputs);
+    }
+
+    @Override
+    public void logInputs() {
+        Logger.processInputs(logKey, inputs);
+    }
+
+    @Override
+    public String getLogKey() {
+        return logKey;
+    }
+
+    /**
+     * Holds the main loop value of the signal in the log until it moves further than the epsilon.
+     * See {@link frc.lib.generic.advantagekit.DeltaEncoder}.
+     *
+     * @param epsilon how far the signal must move to be logged again, in the signal's units. 0 logs every change
+     */
+    public void setLoggingEpsilon(EncoderSignal signal, double epsilon) {
+        inputs.setLoggingEpsilon(signal.getId(), epsilon);
+    }
+
+    @Override
+    public LoggingPolicy getLoggingPolicy() {
+        return loggingPolicy;
+    }
+
+    /** How often the inputs are logged. Ignored in replay. See {@link LoggingPolicy}. */
+    public void setLoggingPolicy(LoggingPolicy loggingPolicy) {
+        this.loggingPolicy = loggingPolicy;
     }
 
     @Override
@@ -57,7 +106,7 @@ public class Encoder implements LoggableHardware {
         return inputs;
     }
 
-    protected boolean[] getSignalsToLog() { return new boolean[ENCODER_INPUTS_LENGTH]; }
+    protected boolean[] getSignalsToLog() { return NO_SIGNALS_TO_LOG; }
 
     private void printSignalError(String signalName) {
         if (CURRENT_MODE == GlobalConstants.Mode.REPLAY) return;
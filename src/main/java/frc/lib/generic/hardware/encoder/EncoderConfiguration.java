@@ -1,6 +1,8 @@
 package frc.lib.generic.hardware.encoder;
 
-public class EncoderConfiguration { 
+import frc.lib.generic.advantagekit.LoggingPolicy;
+
+public class EncoderConfiguration {
     /** The offset to zero the cancoder, in rotations <p> This gets added to all reported encoder positions </p> */
     public double offsetRotations = 0;
 
@@ -13,4 +15,7 @@ public class EncoderConfiguration {
      * <a href="https://pro.docs.ctr-electronics.com/en/latest/docs/hardware-reference/cancoder/index.html#verifying-sensor-direction">CTRE CANcoder documentation</a>
      * */
     public EncoderProperties.SensorRange sensorRange = EncoderProperties.SensorRange.ZeroToOne;
+
+    /** How often the encoder's inputs are logged. Ignored in replay. See {@link LoggingPolicy}. */
+    public LoggingPolicy loggingPolicy = LoggingPolicy.FULL;
 }
@@ -1,8 +1,11 @@
 package frc.lib.generic.hardware.encoder;
 
 import frc.lib.generic.advantagekit.ChoosableLoggedInputs;
+import frc.lib.generic.advantagekit.DeltaEncoder;
 import org.littletonrobotics.junction.LogTable;
 
+import static frc.lib.generic.advantagekit.ChoosableLoggedInputs.getLatestSample;
+
 public class EncoderInputs implements ChoosableLoggedInputs {
     public static final int ENCODER_INPUTS_LENGTH = 4;
 
@@ -11,31 +14,67 @@ public class EncoderInputs implements ChoosableLoggedInputs {
 
     public double[] threadPosition = new double[0];
     public double[] threadVelocity = new double[0];
+    /*
+     * The time each threaded sample was measured, in seconds.
+     * Every signal has its own, since signals of different groups are sampled at different rates.
+     */
+    public double[] threadPositionTimestamps = new double[0];
+    public double[] threadVelocityTimestamps = new double[0];
 
     private boolean[] signalsToLog;
+    private boolean isThreadedOnly = false;
+    private final DeltaEncoder deltaEncoder = new DeltaEncoder(ENCODER_INPUTS_LENGTH / 2);
 
     @Override
     public void setSignalsToLog(boolean[] signalsToLog) {
         this.signalsToLog = signalsToLog;
     }
 
+    @Override
+    public void setThreadedOnly(boolean isThreadedOnly) {
+        this.isThreadedOnly = isThreadedOnly;
+    }
+
+    @Override
+    public void setLoggingEpsilon(int signalIndex, double epsilon) {
+        deltaEncoder.setEpsilon(signalIndex, epsilon);
+    }
+
     @Override
     public void toLog(LogTable table) {
         if (signalsToLog == null) return;
 
-        if (signalsToLog[0]) table.put("Position", position);
-        if (signalsToLog[1]) table.put("Velocity", velocity);
+        table.put("ThreadedOnly", isThreadedOnly);
+        if (isThreadedOnly) useLatestThreadedSamples();
+
+        if (signalsToLog[0] && !(isThreadedOnly && threadPosition.length > 0)) position = deltaEncoder.put(table, "Position", 0, position);
+        if (signalsToLog[1] && !(isThreadedOnly && threadVelocity.length > 0)) velocity = deltaEncoder.put(table, "Velocity", 1, velocity);
 
         if (signalsToLog[2]) table.put("ThreadPosition", threadPosition);
         if (signalsToLog[3]) table.put("ThreadVelocity", threadVelocity);
+
+        if (signalsToLog[2]) table.put("ThreadPositionTimestamps", threadPositionTimestamps);
+        if (signalsToLog[3]) table.put("ThreadVelocityTimestamps", threadVelocityTimestamps);
     }
 
     @Override
     public void fromLog(LogTable table) {
+        isThreadedOnly = table.get("ThreadedOnly", false);
+
         position = table.get("Position", position);
         velocity = table.get("Velocity", velocity);
 
         threadPosition = table.get("ThreadPosition", threadPosition);
         threadVelocity = table.get("ThreadVelocity", threadVelocity);
+
+        threadPositionTimestamps = table.get("ThreadPositionTimestamps", threadPositionTimestamps);
+        threadVelocityTimestamps = table.get("ThreadVelocityTimestamps", threadVelocityTimestamps);
+
+        if (isThreadedOnly) useLatestThreadedSamples();
+    }
+
+    private void useLatestThreadedSamples() {
+        position = getLatestSample(threadPosition, position);
+        velocity = getLatestSample(threadVelocity, velocity);
     }
 }
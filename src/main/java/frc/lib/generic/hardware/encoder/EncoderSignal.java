@@ -1,15 +1,26 @@
 package frc.lib.generic.hardware.encoder;
 
+import frc.lib.generic.SignalGroup;
+
 public enum EncoderSignal {
-    POSITION(0), VELOCITY(1);
+    POSITION(0, SignalGroup.ODOMETRY), VELOCITY(1, SignalGroup.ODOMETRY);
 
     final int id;
+    final SignalGroup defaultGroup;
 
-    EncoderSignal(int id) {
+    EncoderSignal(int id, SignalGroup defaultGroup) {
         this.id = id;
+        this.defaultGroup = defaultGroup;
     }
 
     public int getId() {
         return id;
     }
+
+    /**
+     * @return the group the signal is sampled in when it's set up to use the faster thread without specifying a group
+     */
+    public SignalGroup getDefaultGroup() {
+        return defaultGroup;
+    }
 }
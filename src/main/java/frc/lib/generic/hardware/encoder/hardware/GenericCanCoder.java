@@ -1,16 +1,17 @@
 package frc.lib.generic.hardware.encoder.hardware;
 
-import com.ctre.phoenix6.BaseStatusSignal;
 import com.ctre.phoenix6.StatusCode;
 import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.configs.CANcoderConfiguration;
 import com.ctre.phoenix6.hardware.CANcoder;
 import com.ctre.phoenix6.signals.AbsoluteSensorRangeValue;
 import com.ctre.phoenix6.signals.SensorDirectionValue;
+import frc.lib.generic.SignalGroup;
 import frc.lib.generic.OdometryThread;
+import frc.lib.generic.hardware.HardwareManager;
+import frc.lib.generic.hardware.ThreadedSignalRegistry;
 import frc.lib.generic.hardware.encoder.*;
 
-import java.util.*;
 
 import static frc.lib.generic.hardware.encoder.EncoderInputs.ENCODER_INPUTS_LENGTH;
 
@@ -25,9 +26,8 @@ public class GenericCanCoder extends Encoder {
     private final CANcoder canCoder;
     private final CANcoderConfiguration canCoderConfig = new CANcoderConfiguration();
 
-    private final Map<String, Queue<Double>> signalQueueList = new HashMap<>();
+    private final ThreadedSignalRegistry threadedSignals = new ThreadedSignalRegistry(ENCODER_INPUTS_LENGTH / 2);
 
-    private final List<StatusSignal<Double>> signalsToUpdateList = new ArrayList<>();
     private final StatusSignal<Double> positionSignal, velocitySignal;
 
     public GenericCanCoder(String name, int canCoderID) {
@@ -40,8 +40,8 @@ public class GenericCanCoder extends Encoder {
     }
 
     @Override
-    public void setupSignalUpdates(EncoderSignal signal, boolean useFasterThread) {
-        final int updateFrequency = useFasterThread ? 200 : 50;
+    public void setupSignalUpdates(EncoderSignal signal, SignalGroup group) {
+        final double updateFrequency = group == null ? SignalGroup.SLOW.getFrequencyHertz() : group.getFrequencyHertz();
 
         signalsToLog[signal.getId()] = true;
 
@@ -50,20 +50,22 @@ public class GenericCanCoder extends Encoder {
             case VELOCITY -> setupSignal(velocitySignal, updateFrequency);
         }
 
-        if (!useFasterThread) return;
+        if (group == null) return;
 
         signalsToLog[signal.getId() + ENCODER_INPUTS_LENGTH / 2] = true;
 
         switch (signal) {
             case POSITION ->
-                    signalQueueList.put("position", OdometryThread.getInstance().registerSignal(this::getEncoderPositionPrivate));
+                    threadedSignals.register(signal.getId(), OdometryThread.getInstance().registerSignal(positionSignal, canCoder.getNetwork(), group));
             case VELOCITY ->
-                    signalQueueList.put("velocity", OdometryThread.getInstance().registerSignal(this::getEncoderVelocityPrivate));
+                    threadedSignals.register(signal.getId(), OdometryThread.getInstance().registerSignal(velocitySignal, canCoder.getNetwork(), group));
         }
     }
 
     @Override
     public boolean configure(EncoderConfiguration encoderConfiguration) {
+        setLoggingPolicy(encoderConfiguration.loggingPolicy);
+
         canCoderConfig.MagnetSensor.MagnetOffset = encoderConfiguration.offsetRotations;
 
         canCoderConfig.MagnetSensor.SensorDirection = encoderConfiguration.invert ?
@@ -94,37 +96,40 @@ public class GenericCanCoder extends Encoder {
         return signalsToLog;
     }
 
+    @Override
+    public boolean hasThreadedInputs() {
+        return !threadedSignals.isEmpty();
+    }
+
     @Override
     protected void refreshInputs(EncoderInputs inputs) {
         if (canCoder == null) return;
 
         inputs.setSignalsToLog(signalsToLog);
 
-        BaseStatusSignal.refreshAll(signalsToUpdateList.toArray(new BaseStatusSignal[0]));
-
         inputs.position = getEncoderPositionPrivate();
         inputs.velocity = getEncoderVelocityPrivate();
 
-        if (signalQueueList.isEmpty()) return;
+        if (threadedSignals.isEmpty()) return;
 
-        if (signalQueueList.get("position") != null)
-            inputs.threadPosition = signalQueueList.get("position").stream().mapToDouble(Double::doubleValue).toArray();
-        if (signalQueueList.get("velocity") != null)
-            inputs.threadVelocity = signalQueueList.get("velocity").stream().mapToDouble(Double::doubleValue).toArray();
+        threadedSignals.drain();
 
-        signalQueueList.forEach((k, v) -> v.clear());
+        inputs.threadPosition = threadedSignals.getSamples(EncoderSignal.POSITION.getId());
+        inputs.threadVelocity = threadedSignals.getSamples(EncoderSignal.VELOCITY.getId());
+        inputs.threadPositionTimestamps = threadedSignals.getTimestamps(EncoderSignal.POSITION.getId());
+        inputs.threadVelocityTimestamps = threadedSignals.getTimestamps(EncoderSignal.VELOCITY.getId());
     }
 
     private double getEncoderPositionPrivate() {
-        return positionSignal.refresh().getValue();
+        return positionSignal.getValueAsDouble();
     }
 
     private double getEncoderVelocityPrivate() {
-        return velocitySignal.refresh().getValue();
+        return velocitySignal.getValueAsDouble();
     }
 
-    private void setupSignal(final StatusSignal<Double> correspondingSignal, int updateFrequency) {
-        signalsToUpdateList.add(correspondingSignal);
+    private void setupSignal(final StatusSignal<Double> correspondingSignal, double updateFrequency) {
+        HardwareManager.registerCTRESignals(canCoder.getNetwork(), correspondingSignal);
         correspondingSignal.setUpdateFrequency(updateFrequency);
     }
 }
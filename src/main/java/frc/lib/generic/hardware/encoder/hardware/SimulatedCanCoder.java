@@ -1,13 +1,18 @@
 package frc.lib.generic.hardware.encoder.hardware;
 
+import frc.lib.generic.SignalGroup;
 import frc.lib.generic.hardware.encoder.Encoder;
 import frc.lib.generic.hardware.encoder.EncoderInputs;
 import frc.lib.generic.hardware.encoder.EncoderSignal;
+import frc.lib.util.SampleArrayCache;
+import org.littletonrobotics.junction.Logger;
 
 import java.util.function.DoubleSupplier;
 
 public class SimulatedCanCoder extends Encoder {
     private final boolean[] signalsToLog = new boolean[EncoderInputs.ENCODER_INPUTS_LENGTH];
+    private final SampleArrayCache positionSamples = new SampleArrayCache(1), velocitySamples = new SampleArrayCache(1),
+            timestampSamples = new SampleArrayCache(1);
 
     private DoubleSupplier positionSupplier = () -> 0;
     private DoubleSupplier velocitySupplier = () -> 0;
@@ -27,10 +32,10 @@ public class SimulatedCanCoder extends Encoder {
     }
 
     @Override
-    public void setupSignalUpdates(EncoderSignal signal, boolean useFasterThread) {
+    public void setupSignalUpdates(EncoderSignal signal, SignalGroup group) {
         signalsToLog[signal.getId()] = true;
 
-        if (useFasterThread)
+        if (group != null)
             signalsToLog[signal.getId() + EncoderInputs.ENCODER_INPUTS_LENGTH / 2] = true;
     }
 
@@ -50,7 +55,12 @@ public class SimulatedCanCoder extends Encoder {
         inputs.position = positionSupplier.getAsDouble();
         inputs.velocity = velocitySupplier.getAsDouble();
 
-        inputs.threadPosition = new double[]{inputs.position};
-        inputs.threadVelocity = new double[]{inputs.velocity};
+        inputs.threadPosition = positionSamples.getSingleSample(inputs.position);
+        inputs.threadVelocity = velocitySamples.getSingleSample(inputs.velocity);
+
+        final double[] timestamps = timestampSamples.getSingleSample(Logger.getTimestamp() / 1.0e6);
+
+        inputs.threadPositionTimestamps = timestamps;
+        inputs.threadVelocityTimestamps = timestamps;
     }
 }
@@ -1,7 +1,9 @@
 package frc.lib.generic.hardware.motor;
 
+import frc.lib.generic.SignalGroup;
 import frc.lib.generic.hardware.HardwareManager;
 import frc.lib.generic.advantagekit.LoggableHardware;
+import frc.lib.generic.advantagekit.LoggingPolicy;
 import frc.lib.generic.hardware.encoder.Encoder;
 import frc.robot.GlobalConstants;
 import org.littletonrobotics.junction.Logger;
@@ -17,13 +19,17 @@ import static frc.robot.GlobalConstants.CURRENT_MODE;
  * in addition of better uniformity across the code.
  */
 public class Motor implements LoggableHardware {
+    private static final boolean[] NO_SIGNALS_TO_LOG = new boolean[MOTOR_INPUTS_LENGTH];
+
     private final MotorInputs inputs = new MotorInputs();
     private final String name;
+    private final String logKey;
 
     private MotorConfiguration configuration;
 
     public Motor(String name) {
         this.name = name;
+        this.logKey = "Motors/" + name;
 
         periodic();
         HardwareManager.addHardware(this);
@@ -243,7 +249,17 @@ public class Motor implements LoggableHardware {
     public void setFollowerOf(String name, int masterPort) { }
 
     /** Signals are lazily loaded - only these explicitly called will be updated. Thus you must call this method. when using a signal.*/
-    public void setupSignalUpdates(MotorSignal signal, boolean useFasterThread) { }
+    public void setupSignalUpdates(MotorSignal signal, boolean useFasterThread) {
+        setupSignalUpdates(signal, useFasterThread ? signal.getDefaultGroup() : null);
+    }
+
+    /**
+     * Sets up the signal, sampling it in the given group of the faster thread.
+     *
+     * @param signal the signal to update
+     * @param group  the faster thread group to sample the signal in, or null to only update it in the main loop
+     */
+    public void setupSignalUpdates(MotorSignal signal, SignalGroup group) { }
 
     public void setupSignalUpdates(MotorSignal signal) { setupSignalUpdates(signal, false); }
 
@@ -293,12 +309,21 @@ public class Motor implements LoggableHardware {
 
     protected void refreshInputs(MotorInputs inputs) { }
 
-    protected boolean[] getSignalsToLog() { return new boolean[MOTOR_INPUTS_LENGTH]; }
+    protected boolean[] getSignalsToLog() { return NO_SIGNALS_TO_LOG; }
 
     @Override
-    public void periodic() {
+    public void updateInputs() {
         refreshInputs(inputs);
-        Logger.processInputs("Motors/" + name, inputs);
+    }
+
+    @Override
+    public void logInputs() {
+        Logger.processInputs(logKey, inputs);
+    }
+
+    @Override
+    public String getLogKey() {
+        return logKey;
     }
 
     @Override
@@ -306,6 +331,22 @@ public class Motor implements LoggableHardware {
         return inputs;
     }
 
+    /**
+     * Holds the main loop value of the signal in the log until it moves further than the epsilon.
+     * See {@link frc.lib.generic.advantagekit.DeltaEncoder}.
+     *
+     * @param epsilon how far the signal must move to be logged again, in the signal's units. 0 logs every change
+     */
+    public void setLoggingEpsilon(MotorSignal signal, double epsilon) {
+        inputs.setLoggingEpsilon(signal.getId(), epsilon);
+    }
+
+    @Override
+    public LoggingPolicy getLoggingPolicy() {
+        final MotorConfiguration currentConfiguration = getCurrentConfiguration();
+        return currentConfiguration == null ? LoggingPolicy.FULL : currentConfiguration.loggingPolicy;
+    }
+
     private void printSignalError(String signalName) {
         if (CURRENT_MODE == GlobalConstants.Mode.REPLAY) return;
 
@@ -1,5 +1,6 @@
 package frc.lib.generic.hardware.motor;
 
+import frc.lib.generic.advantagekit.LoggingPolicy;
 import frc.lib.generic.simulation.SimulationProperties;
 
 import frc.lib.generic.simulation.SimulationProperties;
@@ -116,4 +117,10 @@ public class MotorConfiguration {
      * <p>Ignored if set to 0. Used for checking isAtTarget.</p>
      */
     public double closedLoopTolerance = 0;
+
+    /**
+     * How often the motor's inputs are logged. Ignored in replay.
+     * See {@link LoggingPolicy}.
+     */
+    public LoggingPolicy loggingPolicy = LoggingPolicy.FULL;
 }
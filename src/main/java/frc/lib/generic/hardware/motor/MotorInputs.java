@@ -1,8 +1,11 @@
 package frc.lib.generic.hardware.motor;
 
 import frc.lib.generic.advantagekit.ChoosableLoggedInputs;
+import frc.lib.generic.advantagekit.DeltaEncoder;
 import org.littletonrobotics.junction.LogTable;
 
+import static frc.lib.generic.advantagekit.ChoosableLoggedInputs.getLatestSample;
+
 public class MotorInputs implements ChoosableLoggedInputs {
     public static final int MOTOR_INPUTS_LENGTH = 12;
 
@@ -19,24 +22,49 @@ public class MotorInputs implements ChoosableLoggedInputs {
     public double[] threadTarget = new double[0];
     public double[] threadSystemPosition = new double[0];
     public double[] threadSystemVelocity = new double[0];
+    /*
+     * The time each threaded sample was measured, in seconds.
+     * Every signal has its own, since signals of different groups are sampled at different rates.
+     */
+    public double[] threadVoltageTimestamps = new double[0];
+    public double[] threadCurrentTimestamps = new double[0];
+    public double[] threadTemperatureTimestamps = new double[0];
+    public double[] threadTargetTimestamps = new double[0];
+    public double[] threadSystemPositionTimestamps = new double[0];
+    public double[] threadSystemVelocityTimestamps = new double[0];
 
     private boolean[] signalsToLog;
+    private boolean isThreadedOnly = false;
+    private final DeltaEncoder deltaEncoder = new DeltaEncoder(MOTOR_INPUTS_LENGTH / 2);
 
     @Override
     public void setSignalsToLog(boolean[] signalsToLog) {
         this.signalsToLog = signalsToLog;
     }
 
+    @Override
+    public void setThreadedOnly(boolean isThreadedOnly) {
+        this.isThreadedOnly = isThreadedOnly;
+    }
+
+    @Override
+    public void setLoggingEpsilon(int signalIndex, double epsilon) {
+        deltaEncoder.setEpsilon(signalIndex, epsilon);
+    }
+
     @Override
     public void toLog(LogTable table) {
         if (signalsToLog == null) return;
 
-        if (signalsToLog[0]) table.put("Voltage", voltage);
-        if (signalsToLog[1]) table.put("Current", current);
-        if (signalsToLog[2]) table.put("Temperature", temperature);
-        if (signalsToLog[3]) table.put("Target", target);
-        if (signalsToLog[4]) table.put("SystemPosition", systemPosition);
-        if (signalsToLog[5]) table.put("SystemVelocity", systemVelocity);
+        table.put("ThreadedOnly", isThreadedOnly);
+        if (isThreadedOnly) useLatestThreadedSamples();
+
+        if (signalsToLog[0] && !(isThreadedOnly && threadVoltage.length > 0)) voltage = deltaEncoder.put(table, "Voltage", 0, voltage);
+        if (signalsToLog[1] && !(isThreadedOnly && threadCurrent.length > 0)) current = deltaEncoder.put(table, "Current", 1, current);
+        if (signalsToLog[2] && !(isThreadedOnly && threadTemperature.length > 0)) temperature = deltaEncoder.put(table, "Temperature", 2, temperature);
+        if (signalsToLog[3] && !(isThreadedOnly && threadTarget.length > 0)) target = deltaEncoder.put(table, "Target", 3, target);
+        if (signalsToLog[4] && !(isThreadedOnly && threadSystemPosition.length > 0)) systemPosition = deltaEncoder.put(table, "SystemPosition", 4, systemPosition);
+        if (signalsToLog[5] && !(isThreadedOnly && threadSystemVelocity.length > 0)) systemVelocity = deltaEncoder.put(table, "SystemVelocity", 5, systemVelocity);
 
         if (signalsToLog[6]) table.put("ThreadVoltage", threadVoltage);
         if (signalsToLog[7]) table.put("ThreadCurrent", threadCurrent);
@@ -44,10 +72,19 @@ public class MotorInputs implements ChoosableLoggedInputs {
         if (signalsToLog[9]) table.put("ThreadTarget", threadTarget);
         if (signalsToLog[10]) table.put("ThreadSystemPosition", threadSystemPosition);
         if (signalsToLog[11]) table.put("ThreadSystemVelocity", threadSystemVelocity);
+
+        if (signalsToLog[6]) table.put("ThreadVoltageTimestamps", threadVoltageTimestamps);
+        if (signalsToLog[7]) table.put("ThreadCurrentTimestamps", threadCurrentTimestamps);
+        if (signalsToLog[8]) table.put("ThreadTemperatureTimestamps", threadTemperatureTimestamps);
+        if (signalsToLog[9]) table.put("ThreadTargetTimestamps", threadTargetTimestamps);
+        if (signalsToLog[10]) table.put("ThreadSystemPositionTimestamps", threadSystemPositionTimestamps);
+        if (signalsToLog[11]) table.put("ThreadSystemVelocityTimestamps", threadSystemVelocityTimestamps);
     }
 
     @Override
     public void fromLog(LogTable table) {
+        isThreadedOnly = table.get("ThreadedOnly", false);
+
         voltage = table.get("Voltage", voltage);
         current = table.get("Current", current);
         temperature = table.get("Temperature", temperature);
@@ -61,5 +98,23 @@ public class MotorInputs implements ChoosableLoggedInputs {
         threadTarget = table.get("ThreadTarget", threadTarget);
         threadSystemPosition = table.get("ThreadSystemPosition", threadSystemPosition);
         threadSystemVelocity = table.get("ThreadSystemVelocity", threadSystemVelocity);
+
+        threadVoltageTimestamps = table.get("ThreadVoltageTimestamps", threadVoltageTimestamps);
+        threadCurrentTimestamps = table.get("ThreadCurrentTimestamps", threadCurrentTimestamps);
+        threadTemperatureTimestamps = table.get("ThreadTemperatureTimestamps", threadTemperatureTimestamps);
+        threadTargetTimestamps = table.get("ThreadTargetTimestamps", threadTargetTimestamps);
+        threadSystemPositionTimestamps = table.get("ThreadSystemPositionTimestamps", threadSystemPositionTimestamps);
+        threadSystemVelocityTimestamps = table.get("ThreadSystemVelocityTimestamps", threadSystemVelocityTimestamps);
+
+        if (isThreadedOnly) useLatestThreadedSamples();
+    }
+
+    private void useLatestThreadedSamples() {
+        voltage = getLatestSample(threadVoltage, voltage);
+        current = getLatestSample(threadCurrent, current);
+        temperature = getLatestSample(threadTemperature, temperature);
+        target = getLatestSample(threadTarget, target);
+        systemPosition = getLatestSample(threadSystemPosition, systemPosition);
+        systemVelocity = getLatestSample(threadSystemVelocity, systemVelocity);
     }
 }
@@ -1,15 +1,31 @@
 package frc.lib.generic.hardware.motor;
 
+import frc.lib.generic.SignalGroup;
+
 public enum MotorSignal {
-    CURRENT(1), POSITION(4), VELOCITY(5), VOLTAGE(0), TEMPERATURE(2), CLOSED_LOOP_TARGET(3);
+    CURRENT(1, SignalGroup.SLOW),
+    POSITION(4, SignalGroup.ODOMETRY),
+    VELOCITY(5, SignalGroup.ODOMETRY),
+    VOLTAGE(0, SignalGroup.MECHANISM),
+    TEMPERATURE(2, SignalGroup.SLOW),
+    CLOSED_LOOP_TARGET(3, SignalGroup.MECHANISM);
 
     final int id;
+    final SignalGroup defaultGroup;
 
-    MotorSignal(int id) {
+    MotorSignal(int id, SignalGroup defaultGroup) {
         this.id = id;
+        this.defaultGroup = defaultGroup;
     }
 
     public int getId() {
         return id;
     }
+
+    /**
+     * @return the group the signal is sampled in when it's set up to use the faster thread without specifying a group
+     */
+    public SignalGroup getDefaultGroup() {
+        return defaultGroup;
+    }
 }
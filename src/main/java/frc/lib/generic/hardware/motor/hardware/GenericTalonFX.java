@@ -1,6 +1,5 @@
 package frc.lib.generic.hardware.motor.hardware;
 
-import com.ctre.phoenix6.BaseStatusSignal;
 import com.ctre.phoenix6.StatusCode;
 import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.configs.TalonFXConfiguration;
@@ -9,20 +8,21 @@ import com.ctre.phoenix6.controls.*;
 import com.ctre.phoenix6.hardware.TalonFX;
 import com.ctre.phoenix6.signals.InvertedValue;
 import com.ctre.phoenix6.signals.NeutralModeValue;
+import frc.lib.generic.SignalGroup;
+import frc.lib.generic.hardware.HardwareManager;
+import frc.lib.generic.hardware.ThreadedSignalRegistry;
 import frc.lib.generic.hardware.motor.*;
 import frc.lib.generic.OdometryThread;
 
-import java.util.*;
 import java.util.function.DoubleSupplier;
 
 public class GenericTalonFX extends Motor {
     private final TalonFX talonFX;
 
-    private final Map<String, Queue<Double>> signalQueueList = new HashMap<>();
+    private final ThreadedSignalRegistry threadedSignals = new ThreadedSignalRegistry(MotorInputs.MOTOR_INPUTS_LENGTH / 2);
 
     private final boolean[] signalsToLog = new boolean[MotorInputs.MOTOR_INPUTS_LENGTH];
     private final StatusSignal<Double> positionSignal, velocitySignal, voltageSignal, currentSignal, temperatureSignal, closedLoopTarget;
-    private final List<StatusSignal<Double>> signalsToUpdateList = new ArrayList<>();
 
     private final TalonFXConfiguration talonConfig = new TalonFXConfiguration();
     private final TalonFXConfigurator talonConfigurator;
@@ -258,8 +258,8 @@ public class GenericTalonFX extends Motor {
     }
 
     @Override
-    public void setupSignalUpdates(MotorSignal signal, boolean useFasterThread) {
-        final int updateFrequency = useFasterThread ? 200 : 50;
+    public void setupSignalUpdates(MotorSignal signal, SignalGroup group) {
+        final double updateFrequency = group == null ? SignalGroup.SLOW.getFrequencyHertz() : group.getFrequencyHertz();
 
         signalsToLog[signal.getId()] = true;
 
@@ -272,17 +272,17 @@ public class GenericTalonFX extends Motor {
             case CLOSED_LOOP_TARGET -> setupSignal(closedLoopTarget, updateFrequency);
         }
 
-        if (!useFasterThread) return;
+        if (group == null) return;
 
         signalsToLog[signal.getId() + MotorInputs.MOTOR_INPUTS_LENGTH / 2] = true;
 
         switch (signal) {
-            case VELOCITY -> signalQueueList.put("velocity", OdometryThread.getInstance().registerSignal(this::getSystemVelocityPrivate));
-            case POSITION -> signalQueueList.put("position", OdometryThread.getInstance().registerSignal(this::getSystemPositionPrivate));
-            case VOLTAGE -> signalQueueList.put("voltage", OdometryThread.getInstance().registerSignal(this::getVoltagePrivate));
-            case CURRENT -> signalQueueList.put("current", OdometryThread.getInstance().registerSignal(this::getCurrentPrivate));
-            case TEMPERATURE -> signalQueueList.put("temperature", OdometryThread.getInstance().registerSignal(this::getTemperaturePrivate));
-            case CLOSED_LOOP_TARGET -> signalQueueList.put("target", OdometryThread.getInstance().registerSignal(this::getClosedLoopTargetPrivate));
+            case VELOCITY -> threadedSignals.register(signal.getId(), OdometryThread.getInstance().registerSignal(velocitySignal, talonFX.getNetwork(), group));
+            case POSITION -> threadedSignals.register(signal.getId(), OdometryThread.getInstance().registerSignal(positionSignal, talonFX.getNetwork(), group));
+            case VOLTAGE -> threadedSignals.register(signal.getId(), OdometryThread.getInstance().registerSignal(voltageSignal, talonFX.getNetwork(), group));
+            case CURRENT -> threadedSignals.register(signal.getId(), OdometryThread.getInstance().registerSignal(currentSignal, talonFX.getNetwork(), group));
+            case TEMPERATURE -> threadedSignals.register(signal.getId(), OdometryThread.getInstance().registerSignal(temperatureSignal, talonFX.getNetwork(), group));
+            case CLOSED_LOOP_TARGET -> threadedSignals.register(signal.getId(), OdometryThread.getInstance().registerSignal(closedLoopTarget, talonFX.getNetwork(), group));
         }
     }
 
@@ -291,14 +291,17 @@ public class GenericTalonFX extends Motor {
         return signalsToLog;
     }
 
+    @Override
+    public boolean hasThreadedInputs() {
+        return !threadedSignals.isEmpty();
+    }
+
     @Override
     protected void refreshInputs(MotorInputs inputs) {
         if (talonFX == null) return;
 
         inputs.setSignalsToLog(signalsToLog);
 
-        BaseStatusSignal.refreshAll(signalsToUpdateList.toArray(new BaseStatusSignal[0]));
-
         inputs.voltage = getVoltagePrivate();
         inputs.current = getCurrentPrivate();
         inputs.temperature = getTemperaturePrivate();
@@ -306,35 +309,35 @@ public class GenericTalonFX extends Motor {
         inputs.systemPosition = getSystemPositionPrivate();
         inputs.systemVelocity = getSystemVelocityPrivate();
 
-        MotorUtilities.handleThreadedInputs(inputs, signalQueueList);
+        MotorUtilities.handleThreadedInputs(inputs, threadedSignals);
     }
 
     private double getSystemPositionPrivate() {
-        return positionSignal.getValue();
+        return positionSignal.getValueAsDouble();
     }
 
     private double getSystemVelocityPrivate() {
-        return velocitySignal.getValue();
+        return velocitySignal.getValueAsDouble();
     }
 
     private double getVoltagePrivate() {
-        return voltageSignal.getValue();
+        return voltageSignal.getValueAsDouble();
     }
 
     private double getClosedLoopTargetPrivate() {
-        return closedLoopTarget.getValue();
+        return closedLoopTarget.getValueAsDouble();
     }
 
     private double getTemperaturePrivate() {
-        return temperatureSignal.getValue();
+        return temperatureSignal.getValueAsDouble();
     }
 
     private double getCurrentPrivate() {
-        return currentSignal.getValue();
+        return currentSignal.getValueAsDouble();
     }
 
-    private void setupSignal(final StatusSignal<Double> correspondingSignal, final int updateFrequency) {
-        signalsToUpdateList.add(correspondingSignal);
+    private void setupSignal(final StatusSignal<Double> correspondingSignal, final double updateFrequency) {
+        HardwareManager.registerCTRESignals(talonFX.getNetwork(), correspondingSignal);
         correspondingSignal.setUpdateFrequency(updateFrequency);
     }
 }
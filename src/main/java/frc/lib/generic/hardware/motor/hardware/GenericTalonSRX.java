@@ -5,6 +5,7 @@ import com.ctre.phoenix.motorcontrol.ControlMode;
 import com.ctre.phoenix.motorcontrol.NeutralMode;
 import com.ctre.phoenix.motorcontrol.can.TalonSRXConfiguration;
 import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
+import frc.lib.generic.SignalGroup;
 import frc.lib.generic.hardware.motor.*;
 
 import java.util.function.DoubleSupplier;
@@ -136,7 +137,7 @@ public class GenericTalonSRX extends Motor {
     }
 
     @Override
-    public void setupSignalUpdates(MotorSignal signal, boolean useFasterThread) {
+    public void setupSignalUpdates(MotorSignal signal, SignalGroup group) {
         new UnsupportedOperationException("Talon SRX does NOT use signals. Use GenericTalonFX instead").printStackTrace();
     }
 
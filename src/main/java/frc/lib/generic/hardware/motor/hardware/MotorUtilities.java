@@ -1,27 +1,30 @@
 package frc.lib.generic.hardware.motor.hardware;
 
+import frc.lib.generic.hardware.ThreadedSignalRegistry;
 import frc.lib.generic.hardware.motor.MotorInputs;
-
-import java.util.Map;
-import java.util.Queue;
+import frc.lib.generic.hardware.motor.MotorSignal;
 
 public class MotorUtilities {
-    public static void handleThreadedInputs(MotorInputs inputs, Map<String, Queue<Double>> signalQueueList) {
-        if (signalQueueList.isEmpty()) return;
+    /**
+     * Drains the faster thread's queues into the inputs, along with every signal's sample timestamps.
+     */
+    public static void handleThreadedInputs(MotorInputs inputs, ThreadedSignalRegistry threadedSignals) {
+        if (threadedSignals.isEmpty()) return;
+
+        threadedSignals.drain();
 
-        if (signalQueueList.get("position") != null)
-            inputs.threadSystemPosition = signalQueueList.get("position").stream().mapToDouble(Double::doubleValue).toArray();
-        if (signalQueueList.get("velocity") != null)
-            inputs.threadSystemVelocity = signalQueueList.get("velocity").stream().mapToDouble(Double::doubleValue).toArray();
-        if (signalQueueList.get("voltage") != null)
-            inputs.threadVoltage = signalQueueList.get("voltage").stream().mapToDouble(Double::doubleValue).toArray();
-        if (signalQueueList.get("current") != null)
-            inputs.threadCurrent = signalQueueList.get("current").stream().mapToDouble(Double::doubleValue).toArray();
-        if (signalQueueList.get("temperature") != null)
-            inputs.threadTemperature = signalQueueList.get("temperature").stream().mapToDouble(Double::doubleValue).toArray();
-        if (signalQueueList.get("target") != null)
-            inputs.threadTarget = signalQueueList.get("target").stream().mapToDouble(Double::doubleValue).toArray();
+        inputs.threadSystemPosition = threadedSignals.getSamples(MotorSignal.POSITION.getId());
+        inputs.threadSystemVelocity = threadedSignals.getSamples(MotorSignal.VELOCITY.getId());
+        inputs.threadVoltage = threadedSignals.getSamples(MotorSignal.VOLTAGE.getId());
+        inputs.threadCurrent = threadedSignals.getSamples(MotorSignal.CURRENT.getId());
+        inputs.threadTemperature = threadedSignals.getSamples(MotorSignal.TEMPERATURE.getId());
+        inputs.threadTarget = threadedSignals.getSamples(MotorSignal.CLOSED_LOOP_TARGET.getId());
 
-        signalQueueList.forEach((k, v) -> v.clear());
+        inputs.threadSystemPositionTimestamps = threadedSignals.getTimestamps(MotorSignal.POSITION.getId());
+        inputs.threadSystemVelocityTimestamps = threadedSignals.getTimestamps(MotorSignal.VELOCITY.getId());
+        inputs.threadVoltageTimestamps = threadedSignals.getTimestamps(MotorSignal.VOLTAGE.getId());
+        inputs.threadCurrentTimestamps = threadedSignals.getTimestamps(MotorSignal.CURRENT.getId());
+        inputs.threadTemperatureTimestamps = threadedSignals.getTimestamps(MotorSignal.TEMPERATURE.getId());
+        inputs.threadTargetTimestamps = threadedSignals.getTimestamps(MotorSignal.CLOSED_LOOP_TARGET.getId());
     }
 }
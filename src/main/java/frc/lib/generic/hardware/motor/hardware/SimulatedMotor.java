@@ -1,8 +1,11 @@
 package frc.lib.generic.hardware.motor.hardware;
 
+import frc.lib.generic.SignalGroup;
 import frc.lib.generic.hardware.motor.*;
 import frc.lib.generic.simulation.GenericSimulation;
+import frc.lib.util.SampleArrayCache;
 import frc.robot.GlobalConstants;
+import org.littletonrobotics.junction.Logger;
 
 import static frc.lib.generic.hardware.motor.MotorInputs.MOTOR_INPUTS_LENGTH;
 import static frc.robot.GlobalConstants.CURRENT_MODE;
@@ -12,6 +15,10 @@ public class SimulatedMotor extends Motor {
     private GenericSimulation simulation;
 
     private final boolean[] signalsToLog = new boolean[MOTOR_INPUTS_LENGTH];
+    private final SampleArrayCache voltageSamples = new SampleArrayCache(1), currentSamples = new SampleArrayCache(1),
+            temperatureSamples = new SampleArrayCache(1), targetSamples = new SampleArrayCache(1),
+            positionSamples = new SampleArrayCache(1), velocitySamples = new SampleArrayCache(1),
+            timestampSamples = new SampleArrayCache(1);
 
     public SimulatedMotor(String name) {
         super(name);
@@ -67,8 +74,8 @@ public class SimulatedMotor extends Motor {
     }
 
     @Override
-    public void setupSignalUpdates(MotorSignal signal, boolean useFasterThread) {
-        if (useFasterThread)
+    public void setupSignalUpdates(MotorSignal signal, SignalGroup group) {
+        if (group != null)
             signalsToLog[signal.getId() + MOTOR_INPUTS_LENGTH / 2] = true;
 
         signalsToLog[signal.getId()] = true;
@@ -96,11 +103,20 @@ public class SimulatedMotor extends Motor {
         inputs.systemPosition = simulation.getPositionRotations();
         inputs.systemVelocity = simulation.getVelocityRotationsPerSecond();
 
-        inputs.threadVoltage = new double[]{inputs.voltage};
-        inputs.threadCurrent = new double[]{inputs.current};
-        inputs.threadTemperature = new double[]{inputs.temperature};
-        inputs.threadTarget = new double[]{inputs.target};
-        inputs.threadSystemPosition = new double[]{inputs.systemPosition};
-        inputs.threadSystemVelocity = new double[]{inputs.systemVelocity};
+        inputs.threadVoltage = voltageSamples.getSingleSample(inputs.voltage);
+        inputs.threadCurrent = currentSamples.getSingleSample(inputs.current);
+        inputs.threadTemperature = temperatureSamples.getSingleSample(inputs.temperature);
+        inputs.threadTarget = targetSamples.getSingleSample(inputs.target);
+        inputs.threadSystemPosition = positionSamples.getSingleSample(inputs.systemPosition);
+        inputs.threadSystemVelocity = velocitySamples.getSingleSample(inputs.systemVelocity);
+
+        final double[] timestamps = timestampSamples.getSingleSample(Logger.getTimestamp() / 1.0e6);
+
+        inputs.threadVoltageTimestamps = timestamps;
+        inputs.threadCurrentTimestamps = timestamps;
+        inputs.threadTemperatureTimestamps = timestamps;
+        inputs.threadTargetTimestamps = timestamps;
+        inputs.threadSystemPositionTimestamps = timestamps;
+        inputs.threadSystemVelocityTimestamps = timestamps;
     }
 }
@@ -7,6 +7,7 @@ import com.ctre.phoenix6.configs.TalonFXConfigurator;
 import com.ctre.phoenix6.controls.*;
 import com.ctre.phoenix6.hardware.TalonFX;
 import com.ctre.phoenix6.sim.TalonFXSimState;
+import frc.lib.generic.SignalGroup;
 import frc.lib.generic.hardware.motor.Motor;
 import frc.lib.generic.hardware.motor.MotorConfiguration;
 import frc.lib.generic.hardware.motor.MotorProperties;
@@ -174,7 +175,7 @@ public class SimulationTalonFX extends Motor {
     }
 
     @Override
-    public void setupSignalUpdates(MotorSignal signal, boolean useFasterThread) {
+    public void setupSignalUpdates(MotorSignal signal, SignalGroup group) {
         switch (signal) {
             case VELOCITY -> velocitySignal.setUpdateFrequency(1000);
             case POSITION -> positionSignal.setUpdateFrequency(1000);
@@ -9,6 +9,8 @@ import com.revrobotics.RelativeEncoder;
 import com.revrobotics.SparkPIDController;
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import frc.lib.generic.SignalGroup;
+import frc.lib.generic.hardware.ThreadedSignalRegistry;
 import frc.lib.generic.Feedforward;
 import frc.lib.generic.OdometryThread;
 import frc.lib.generic.hardware.motor.MotorConfiguration;
@@ -19,9 +21,6 @@ import frc.lib.generic.hardware.motor.hardware.MotorUtilities;
 import frc.lib.math.Conversions;
 import org.littletonrobotics.junction.Logger;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Queue;
 import java.util.function.DoubleSupplier;
 
 import static frc.lib.generic.hardware.motor.MotorInputs.MOTOR_INPUTS_LENGTH;
@@ -32,7 +31,7 @@ public class GenericSparkMax extends GenericSparkBase {
     private final SparkPIDController sparkController;
 
     private final boolean[] signalsToLog = new boolean[MOTOR_INPUTS_LENGTH];
-    private final Map<String, Queue<Double>> signalQueueList = new HashMap<>();
+    private final ThreadedSignalRegistry threadedSignals = new ThreadedSignalRegistry(MOTOR_INPUTS_LENGTH / 2);
 
     private double closedLoopTarget;
 
@@ -276,8 +275,8 @@ public class GenericSparkMax extends GenericSparkBase {
      * Explanation here: <a href="https://docs.revrobotics.com/brushless/spark-max/control-interfaces">REV DOCS</a>
      */
     @Override
-    public void setupSignalUpdates(MotorSignal signal, boolean useFasterThread) {
-        final int ms = 1000 / (useFasterThread ? 200 : 50);
+    public void setupSignalUpdates(MotorSignal signal, SignalGroup group) {
+        final int ms = (int) (1000 / (group == null ? SignalGroup.SLOW.getFrequencyHertz() : group.getFrequencyHertz()));
 
         signalsToLog[signal.getId()] = true;
 
@@ -287,23 +286,23 @@ public class GenericSparkMax extends GenericSparkBase {
             case VOLTAGE -> spark.setPeriodicFramePeriod(CANSparkLowLevel.PeriodicFrame.kStatus3, ms);
         }
 
-        if (!useFasterThread) return;
+        if (group == null) return;
 
         signalsToLog[signal.getId() + MOTOR_INPUTS_LENGTH / 2] = true;
 
         switch (signal) {
             case POSITION ->
-                    signalQueueList.put("position", OdometryThread.getInstance().registerSignal(this::getSystemPositionPrivate));
+                    threadedSignals.register(signal.getId(), OdometryThread.getInstance().registerSignal(this::getSystemPositionPrivate, group));
             case VELOCITY ->
-                    signalQueueList.put("velocity", OdometryThread.getInstance().registerSignal(this::getSystemVelocityPrivate));
+                    threadedSignals.register(signal.getId(), OdometryThread.getInstance().registerSignal(this::getSystemVelocityPrivate, group));
             case CURRENT ->
-                    signalQueueList.put("current", OdometryThread.getInstance().registerSignal(spark::getOutputCurrent));
+                    threadedSignals.register(signal.getId(), OdometryThread.getInstance().registerSignal(spark::getOutputCurrent, group));
             case VOLTAGE ->
-                    signalQueueList.put("voltage", OdometryThread.getInstance().registerSignal(this::getVoltagePrivate));
+                    threadedSignals.register(signal.getId(), OdometryThread.getInstance().registerSignal(this::getVoltagePrivate, group));
             case TEMPERATURE ->
-                    signalQueueList.put("temperature", OdometryThread.getInstance().registerSignal(spark::getMotorTemperature));
+                    threadedSignals.register(signal.getId(), OdometryThread.getInstance().registerSignal(spark::getMotorTemperature, group));
             case CLOSED_LOOP_TARGET ->
-                    signalQueueList.put("target", OdometryThread.getInstance().registerSignal(() -> closedLoopTarget));
+                    threadedSignals.register(signal.getId(), OdometryThread.getInstance().registerSignal(() -> closedLoopTarget, group));
         }
     }
 
@@ -312,6 +311,11 @@ public class GenericSparkMax extends GenericSparkBase {
         return signalsToLog;
     }
 
+    @Override
+    public boolean hasThreadedInputs() {
+        return !threadedSignals.isEmpty();
+    }
+
     @Override
     protected void refreshInputs(MotorInputs inputs) {
         if (spark == null) return;
@@ -325,7 +329,7 @@ public class GenericSparkMax extends GenericSparkBase {
         if (signalsToLog[4]) inputs.systemPosition = getEffectivePosition();
         if (signalsToLog[5]) inputs.systemVelocity = getEffectiveVelocity();
 
-        MotorUtilities.handleThreadedInputs(inputs, signalQueueList);
+        MotorUtilities.handleThreadedInputs(inputs, threadedSignals);
     }
 
     private double getVoltagePrivate() {
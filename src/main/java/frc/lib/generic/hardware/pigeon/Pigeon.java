@@ -1,16 +1,21 @@
 package frc.lib.generic.hardware.pigeon;
 
+import frc.lib.generic.SignalGroup;
 import frc.lib.generic.hardware.HardwareManager;
 import frc.lib.generic.advantagekit.LoggableHardware;
+import frc.lib.generic.advantagekit.LoggingPolicy;
 import frc.lib.generic.hardware.motor.MotorSignal;
 import org.littletonrobotics.junction.Logger;
 
 public class Pigeon implements LoggableHardware {
     private final PigeonInputs inputs = new PigeonInputs();
     private final String name;
+    private final String logKey;
+    private LoggingPolicy loggingPolicy = LoggingPolicy.FULL;
 
     public Pigeon(String name) {
         this.name = name;
+        this.logKey = "Pigeons/" + name;
 
         periodic();
         HardwareManager.addHardware(this);
@@ -25,15 +30,53 @@ public class Pigeon implements LoggableHardware {
     /**
      * Signals are lazily loaded - only these explicity called will be updated. Thus you must call this method. when using a signal.
      */
-    public void setupSignalUpdates(PigeonSignal signal, boolean useFasterThread) { }
+    public void setupSignalUpdates(PigeonSignal signal, boolean useFasterThread) {
+        setupSignalUpdates(signal, useFasterThread ? signal.getDefaultGroup() : null);
+    }
+
+    /**
+     * Sets up the signal, sampling it in the given group of the faster thread.
+     *
+     * @param signal the signal to update
+     * @param group  the faster thread group to sample the signal in, or null to only update it in the main loop
+     */
+    public void setupSignalUpdates(PigeonSignal signal, SignalGroup group) { }
 
     public void setupSignalUpdates(PigeonSignal signal) { setupSignalUpdates(signal, false); }
 
     @Override
-    public void periodic() {
+    public void updateInputs() {
         refreshInputs(inputs);
-        Logger.processInputs("Pigeons/" + name, inputs);
+    }
+
+    @Override
+    public void logInputs() {
+        Logger.processInputs(logKey, inputs);
+    }
+
+    @Override
+    public String getLogKey() {
+        return logKey;
+    }
+
+    /**
+     * Holds the main loop value of the signal in the log until it moves further than the epsilon.
+     * See {@link frc.lib.generic.advantagekit.DeltaEncoder}.
+     *
+     * @param epsilon how far the signal must move to be logged again, in the signal's units. 0 logs every change
+     */
+    public void setLoggingEpsilon(PigeonSignal signal, double epsilon) {
+        inputs.setLoggingEpsilon(signal.getId(), epsilon);
+    }
+
+    @Override
+    public LoggingPolicy getLoggingPolicy() {
+        return loggingPolicy;
+    }
 
+    /** How often the inputs are logged. Ignored in replay. See {@link LoggingPolicy}. */
+    public void setLoggingPolicy(LoggingPolicy loggingPolicy) {
+        this.loggingPolicy = loggingPolicy;
     }
 
     @Override
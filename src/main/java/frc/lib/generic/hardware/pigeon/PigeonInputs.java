@@ -1,8 +1,11 @@
 package frc.lib.generic.hardware.pigeon;
 
 import frc.lib.generic.advantagekit.ChoosableLoggedInputs;
+import frc.lib.generic.advantagekit.DeltaEncoder;
 import org.littletonrobotics.junction.LogTable;
 
+import static frc.lib.generic.advantagekit.ChoosableLoggedInputs.getLatestSample;
+
 public class PigeonInputs implements ChoosableLoggedInputs {
     public static final int PIGEON_INPUTS_LENGTH = 6;
 
@@ -13,29 +16,57 @@ public class PigeonInputs implements ChoosableLoggedInputs {
     public double[] threadGyroYawDegrees = new double[0];
     public double[] threadGyroPitchDegrees = new double[0];
     public double[] threadGyroRollDegrees = new double[0];
+    /*
+     * The time each threaded sample was measured, in seconds.
+     * Every signal has its own, since signals of different groups are sampled at different rates.
+     */
+    public double[] threadGyroYawTimestamps = new double[0];
+    public double[] threadGyroPitchTimestamps = new double[0];
+    public double[] threadGyroRollTimestamps = new double[0];
 
     private boolean[] signalsToLog;
+    private boolean isThreadedOnly = false;
+    private final DeltaEncoder deltaEncoder = new DeltaEncoder(PIGEON_INPUTS_LENGTH / 2);
 
     @Override
     public void setSignalsToLog(boolean[] signalsToLog) {
         this.signalsToLog = signalsToLog;
     }
 
+    @Override
+    public void setThreadedOnly(boolean isThreadedOnly) {
+        this.isThreadedOnly = isThreadedOnly;
+    }
+
+    @Override
+    public void setLoggingEpsilon(int signalIndex, double epsilon) {
+        deltaEncoder.setEpsilon(signalIndex, epsilon);
+    }
+
     @Override
     public void toLog(LogTable table) {
         if (signalsToLog == null) return;
 
-        if (signalsToLog[0]) table.put("GyroYawDegrees", gyroYawDegrees);
-        if (signalsToLog[1]) table.put("GyroRollDegrees", gyroRollDegrees);
-        if (signalsToLog[2]) table.put("GyroPitchDegrees", gyroPitchDegrees);
+        table.put("ThreadedOnly", isThreadedOnly);
+        if (isThreadedOnly) useLatestThreadedSamples();
+
+        if (signalsToLog[0] && !(isThreadedOnly && threadGyroYawDegrees.length > 0)) gyroYawDegrees = deltaEncoder.put(table, "GyroYawDegrees", 0, gyroYawDegrees);
+        if (signalsToLog[1] && !(isThreadedOnly && threadGyroRollDegrees.length > 0)) gyroRollDegrees = deltaEncoder.put(table, "GyroRollDegrees", 1, gyroRollDegrees);
+        if (signalsToLog[2] && !(isThreadedOnly && threadGyroPitchDegrees.length > 0)) gyroPitchDegrees = deltaEncoder.put(table, "GyroPitchDegrees", 2, gyroPitchDegrees);
 
         if (signalsToLog[3]) table.put("ThreadGyroYawDegrees", threadGyroYawDegrees);
         if (signalsToLog[4]) table.put("ThreadGyroPitchDegrees", threadGyroPitchDegrees);
         if (signalsToLog[5]) table.put("ThreadGyroRollDegrees", threadGyroRollDegrees);
+
+        if (signalsToLog[3]) table.put("ThreadGyroYawTimestamps", threadGyroYawTimestamps);
+        if (signalsToLog[4]) table.put("ThreadGyroPitchTimestamps", threadGyroPitchTimestamps);
+        if (signalsToLog[5]) table.put("ThreadGyroRollTimestamps", threadGyroRollTimestamps);
     }
 
     @Override
     public void fromLog(LogTable table) {
+        isThreadedOnly = table.get("ThreadedOnly", false);
+
         gyroYawDegrees = table.get("GyroYawDegrees", gyroYawDegrees);
         gyroRollDegrees = table.get("GyroRollDegrees", gyroRollDegrees);
         gyroPitchDegrees = table.get("GyroPitchDegrees", gyroPitchDegrees);
@@ -43,5 +74,17 @@ public class PigeonInputs implements ChoosableLoggedInputs {
         threadGyroYawDegrees = table.get("ThreadGyroYawDegrees", threadGyroYawDegrees);
         threadGyroPitchDegrees = table.get("ThreadGyroPitchDegrees", threadGyroPitchDegrees);
         threadGyroRollDegrees = table.get("ThreadGyroRollDegrees", threadGyroRollDegrees);
+
+        threadGyroYawTimestamps = table.get("ThreadGyroYawTimestamps", threadGyroYawTimestamps);
+        threadGyroPitchTimestamps = table.get("ThreadGyroPitchTimestamps", threadGyroPitchTimestamps);
+        threadGyroRollTimestamps = table.get("ThreadGyroRollTimestamps", threadGyroRollTimestamps);
+
+        if (isThreadedOnly) useLatestThreadedSamples();
+    }
+
+    private void useLatestThreadedSamples() {
+        gyroYawDegrees = getLatestSample(threadGyroYawDegrees, gyroYawDegrees);
+        gyroRollDegrees = getLatestSample(threadGyroRollDegrees, gyroRollDegrees);
+        gyroPitchDegrees = getLatestSample(threadGyroPitchDegrees, gyroPitchDegrees);
     }
 }
@@ -1,15 +1,26 @@
 package frc.lib.generic.hardware.pigeon;
 
+import frc.lib.generic.SignalGroup;
+
 public enum PigeonSignal {
-    YAW(0), PITCH(1), ROLL(2);
+    YAW(0, SignalGroup.ODOMETRY), PITCH(1, SignalGroup.ODOMETRY), ROLL(2, SignalGroup.ODOMETRY);
 
     final int id;
+    final SignalGroup defaultGroup;
 
-    PigeonSignal(int id) {
+    PigeonSignal(int id, SignalGroup defaultGroup) {
         this.id = id;
+        this.defaultGroup = defaultGroup;
     }
 
     public int getId() {
         return id;
     }
+
+    /**
+     * @return the group the signal is sampled in when it's set up to use the faster thread without specifying a group
+     */
+    public SignalGroup getDefaultGroup() {
+        return defaultGroup;
+    }
 }
@@ -1,14 +1,13 @@
 package frc.lib.generic.hardware.pigeon.hardware;
 
 import com.ctre.phoenix.sensors.WPI_PigeonIMU;
+import frc.lib.generic.SignalGroup;
 import frc.lib.generic.hardware.pigeon.Pigeon;
 import frc.lib.generic.hardware.pigeon.PigeonInputs;
 import frc.lib.generic.hardware.pigeon.PigeonSignal;
 import frc.lib.generic.OdometryThread;
+import frc.lib.generic.hardware.ThreadedSignalRegistry;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Queue;
 
 import static frc.lib.generic.hardware.pigeon.PigeonInputs.PIGEON_INPUTS_LENGTH;
 
@@ -16,7 +15,7 @@ public class GenericIMU extends Pigeon {
     private final WPI_PigeonIMU pigeon;
 
     private final boolean[] signalsToLog = new boolean[PIGEON_INPUTS_LENGTH];
-    private final Map<String, Queue<Double>> signalQueueList = new HashMap<>();
+    private final ThreadedSignalRegistry threadedSignals = new ThreadedSignalRegistry(PIGEON_INPUTS_LENGTH / 2);
 
     public GenericIMU(String name, int deviceNumber) {
         super(name);
@@ -35,20 +34,25 @@ public class GenericIMU extends Pigeon {
     }
 
     @Override
-    public void setupSignalUpdates(PigeonSignal signal, boolean useFasterThread) {
+    public void setupSignalUpdates(PigeonSignal signal, SignalGroup group) {
         signalsToLog[signal.getId()] = true;
 
-        if (!useFasterThread) return;
+        if (group == null) return;
 
         signalsToLog[signal.getId() + PIGEON_INPUTS_LENGTH / 2] = true;
 
         switch (signal) {
-            case YAW -> signalQueueList.put("yaw", OdometryThread.getInstance().registerSignal(pigeon::getYaw));
-            case ROLL -> signalQueueList.put("roll", OdometryThread.getInstance().registerSignal(pigeon::getRoll));
-            case PITCH -> signalQueueList.put("pitch", OdometryThread.getInstance().registerSignal(pigeon::getPitch));
+            case YAW -> threadedSignals.register(signal.getId(), OdometryThread.getInstance().registerSignal(pigeon::getYaw, group));
+            case ROLL -> threadedSignals.register(signal.getId(), OdometryThread.getInstance().registerSignal(pigeon::getRoll, group));
+            case PITCH -> threadedSignals.register(signal.getId(), OdometryThread.getInstance().registerSignal(pigeon::getPitch, group));
         }
     }
 
+    @Override
+    public boolean hasThreadedInputs() {
+        return !threadedSignals.isEmpty();
+    }
+
     @Override
     protected void refreshInputs(PigeonInputs inputs) {
         if (pigeon == null) return;
@@ -59,15 +63,15 @@ public class GenericIMU extends Pigeon {
         inputs.gyroRollDegrees = pigeon.getRoll();
         inputs.gyroPitchDegrees = pigeon.getPitch();
 
-        if (signalQueueList.isEmpty()) return;
+        if (threadedSignals.isEmpty()) return;
 
-        if (signalQueueList.get("yaw") != null)
-            inputs.threadGyroYawDegrees = signalQueueList.get("yaw").stream().mapToDouble(Double::doubleValue).toArray();
-        if (signalQueueList.get("pitch") != null)
-            inputs.threadGyroPitchDegrees = signalQueueList.get("pitch").stream().mapToDouble(Double::doubleValue).toArray();
-        if (signalQueueList.get("roll") != null)
-            inputs.threadGyroRollDegrees = signalQueueList.get("roll").stream().mapToDouble(Double::doubleValue).toArray();
+        threadedSignals.drain();
 
-        signalQueueList.forEach((k, v) -> v.clear());
+        inputs.threadGyroYawDegrees = threadedSignals.getSamples(PigeonSignal.YAW.getId());
+        inputs.threadGyroPitchDegrees = threadedSignals.getSamples(PigeonSignal.PITCH.getId());
+        inputs.threadGyroRollDegrees = threadedSignals.getSamples(PigeonSignal.ROLL.getId());
+        inputs.threadGyroYawTimestamps = threadedSignals.getTimestamps(PigeonSignal.YAW.getId());
+        inputs.threadGyroPitchTimestamps = threadedSignals.getTimestamps(PigeonSignal.PITCH.getId());
+        inputs.threadGyroRollTimestamps = threadedSignals.getTimestamps(PigeonSignal.ROLL.getId());
     }
 }
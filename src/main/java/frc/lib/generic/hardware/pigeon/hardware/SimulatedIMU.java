@@ -1,9 +1,12 @@
 package frc.lib.generic.hardware.pigeon.hardware;
 
 import edu.wpi.first.math.util.Units;
+import frc.lib.generic.SignalGroup;
 import frc.lib.generic.hardware.pigeon.Pigeon;
 import frc.lib.generic.hardware.pigeon.PigeonInputs;
 import frc.lib.generic.hardware.pigeon.PigeonSignal;
+import frc.lib.util.SampleArrayCache;
+import org.littletonrobotics.junction.Logger;
 
 import static frc.lib.generic.hardware.pigeon.PigeonInputs.PIGEON_INPUTS_LENGTH;
 import static frc.robot.GlobalConstants.ROBOT_PERIODIC_LOOP_TIME;
@@ -12,6 +15,7 @@ import static frc.robot.RobotContainer.SWERVE;
 public class SimulatedIMU extends Pigeon {
     private double simulatedYawDegrees = 0;
     private final boolean[] signalsToLog = new boolean[PIGEON_INPUTS_LENGTH];
+    private final SampleArrayCache yawSamples = new SampleArrayCache(1), timestampSamples = new SampleArrayCache(1);
 
     public SimulatedIMU(String name) {
         super(name);
@@ -32,8 +36,8 @@ public class SimulatedIMU extends Pigeon {
     }
 
     @Override
-    public void setupSignalUpdates(PigeonSignal signal, boolean useFasterThread) {
-        if (useFasterThread) {
+    public void setupSignalUpdates(PigeonSignal signal, SignalGroup group) {
+        if (group != null) {
             signalsToLog[signal.getId() + PIGEON_INPUTS_LENGTH / 2] = true;
         }
 
@@ -49,6 +53,7 @@ public class SimulatedIMU extends Pigeon {
         update(SWERVE.getSelfRelativeVelocity().omegaRadiansPerSecond, ROBOT_PERIODIC_LOOP_TIME);
 
         inputs.gyroYawDegrees = getYaw();
-        inputs.threadGyroYawDegrees = new double[]{inputs.gyroYawDegrees};
+        inputs.threadGyroYawDegrees = yawSamples.getSingleSample(inputs.gyroYawDegrees);
+        inputs.threadGyroYawTimestamps = timestampSamples.getSingleSample(Logger.getTimestamp() / 1.0e6);
     }
 }
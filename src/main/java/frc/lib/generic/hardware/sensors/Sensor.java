@@ -1,6 +1,7 @@
 package frc.lib.generic.hardware.sensors;
 
 import frc.lib.generic.advantagekit.LoggableHardware;
+import frc.lib.generic.advantagekit.LoggingPolicy;
 import frc.lib.generic.hardware.HardwareManager;
 import org.littletonrobotics.junction.AutoLog;
 import org.littletonrobotics.junction.Logger;
@@ -8,9 +9,12 @@ import org.littletonrobotics.junction.Logger;
 public class Sensor implements LoggableHardware {
     private final SensorInputsAutoLogged inputs = new SensorInputsAutoLogged();
     private final String name;
+    private final String logKey;
+    private LoggingPolicy loggingPolicy = LoggingPolicy.FULL;
 
     public Sensor(String name) {
         this.name = name;
+        this.logKey = name;
 
         periodic();
         HardwareManager.addHardware(this);
@@ -18,10 +22,52 @@ public class Sensor implements LoggableHardware {
 
     public int get() { return inputs.currentValue; }
 
+    /**
+     * Unlike {@link #get()}, this also catches pulses that started and ended between two loops.
+     *
+     * @return whether the sensor had the given value at any point since the last loop
+     */
+    public boolean hadValueSinceLastLoop(int value) {
+        if (inputs.currentValue == value) return true;
+
+        for (int edgeValue : inputs.threadCurrentValue) {
+            if (edgeValue == value) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * @return the FPGA timestamp of the latest edge captured since the last loop, or NaN if there was none
+     */
+    public double getLatestEdgeTimestamp() {
+        final double[] edgeTimestamps = inputs.threadEdgeTimestamps;
+        return edgeTimestamps.length == 0 ? Double.NaN : edgeTimestamps[edgeTimestamps.length - 1];
+    }
+
     @Override
-    public void periodic() {
+    public void updateInputs() {
         refreshInputs(inputs);
-        Logger.processInputs(name, inputs);
+    }
+
+    @Override
+    public void logInputs() {
+        Logger.processInputs(logKey, inputs);
+    }
+
+    @Override
+    public String getLogKey() {
+        return logKey;
+    }
+
+    @Override
+    public LoggingPolicy getLoggingPolicy() {
+        return loggingPolicy;
+    }
+
+    /** How often the inputs are logged. Ignored in replay. See {@link LoggingPolicy}. */
+    public void setLoggingPolicy(LoggingPolicy loggingPolicy) {
+        this.loggingPolicy = loggingPolicy;
     }
 
     public SensorInputsAutoLogged getInputs() { return inputs; }
@@ -30,6 +76,10 @@ public class Sensor implements LoggableHardware {
     @AutoLog
     public static class SensorInputs {
         public int currentValue = 0;
+
+        /** The value after every edge since the last loop, oldest first. */
         public int[] threadCurrentValue = new int[0];
+        /** The FPGA timestamp of every edge in {@link #threadCurrentValue}, in seconds. */
+        public double[] threadEdgeTimestamps = new double[0];
     }
 }
@@ -1,15 +1,47 @@
 package frc.lib.generic.hardware.sensors.hardware;
 
+import edu.wpi.first.wpilibj.AsynchronousInterrupt;
 import frc.lib.generic.hardware.sensors.Sensor;
 import frc.lib.generic.hardware.sensors.SensorInputsAutoLogged;
+import frc.lib.util.SampleArrayCache;
+import frc.lib.util.TimestampedDoubleRingBuffer;
 
+/**
+ * A digital input whose edges are captured by an interrupt, with the FPGA timestamp of the edge.
+ * <p>
+ * The edges since the last loop are logged in {@link Sensor.SensorInputs#threadCurrentValue} and
+ * {@link Sensor.SensorInputs#threadEdgeTimestamps}, so even pulses shorter than a loop are seen, and replayed.
+ */
 public class DigitalInput extends Sensor {
+    private static final int EDGE_QUEUE_CAPACITY = 64;
+    private static final int[] NO_EDGES = new int[0];
+
     private final edu.wpi.first.wpilibj.DigitalInput digitalInput;
+    private final AsynchronousInterrupt interrupt;
+
+    /** The value after each edge, stamped with the edge's FPGA timestamp. Filled by the interrupt thread. */
+    private final TimestampedDoubleRingBuffer edges = new TimestampedDoubleRingBuffer(EDGE_QUEUE_CAPACITY);
+    private final SampleArrayCache edgeTimestampArrays = new SampleArrayCache(edges.capacity());
+    private final double[] drainedEdgeValues = new double[edges.capacity()];
+    /**
+     * One edge value array per edge count. AdvantageKit copies int arrays into long arrays when they're logged, so unlike the
+     * timestamps, a single array per length is enough.
+     */
+    private final int[][] edgeValueArrays = new int[edges.capacity() + 1][];
 
     public DigitalInput(String name, int id) {
         super(name);
 
         digitalInput = new edu.wpi.first.wpilibj.DigitalInput(id);
+
+        interrupt = new AsynchronousInterrupt(digitalInput, this::recordEdges);
+        interrupt.setInterruptEdges(true, true);
+        interrupt.enable();
+    }
+
+    @Override
+    public boolean hasThreadedInputs() {
+        return true;
     }
 
     @Override
@@ -18,6 +50,47 @@ public class DigitalInput extends Sensor {
 
         inputs.currentValue = digitalInput.get() ? 1 : 0;
 
-        //todo: add support for faster akit inputs
+        edges.capture();
+
+        final int edgeCount = edges.capturedSize();
+
+        inputs.threadEdgeTimestamps = edgeTimestampArrays.get(edgeCount);
+        edges.drainTo(drainedEdgeValues, inputs.threadEdgeTimestamps);
+
+        inputs.threadCurrentValue = getEdgeValueArray(edgeCount);
+
+        for (int i = 0; i < edgeCount; i++)
+            inputs.threadCurrentValue[i] = (int) drainedEdgeValues[i];
+    }
+
+    private int[] getEdgeValueArray(int edgeCount) {
+        if (edgeCount == 0) return NO_EDGES;
+
+        if (edgeValueArrays[edgeCount] == null) edgeValueArrays[edgeCount] = new int[edgeCount];
+
+        return edgeValueArrays[edgeCount];
+    }
+
+    /**
+     * Runs on the interrupt thread. If both edges happened since the last callback, they are recorded in the order they happened.
+     */
+    private void recordEdges(boolean rising, boolean falling) {
+        if (rising && falling) {
+            final double risingTimestamp = interrupt.getRisingTimestamp();
+            final double fallingTimestamp = interrupt.getFallingTimestamp();
+
+            if (risingTimestamp < fallingTimestamp) {
+                edges.offer(1, risingTimestamp);
+                edges.offer(0, fallingTimestamp);
+            } else {
+                edges.offer(0, fallingTimestamp);
+                edges.offer(1, risingTimestamp);
+            }
+
+            return;
+        }
+
+        if (rising) edges.offer(1, interrupt.getRisingTimestamp());
+        if (falling) edges.offer(0, interrupt.getFallingTimestamp());
     }
 }
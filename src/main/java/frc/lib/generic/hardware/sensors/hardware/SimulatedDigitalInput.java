@@ -11,7 +11,5 @@ public class SimulatedDigitalInput extends Sensor {
     @Override
     public void refreshInputs(SensorInputsAutoLogged inputs) {
         inputs.currentValue = 1;
-
-        inputs.threadCurrentValue = new int[]{inputs.currentValue};
     }
 }
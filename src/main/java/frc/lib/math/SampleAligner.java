@@ -0,0 +1,115 @@
+package frc.lib.math;
+
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * Resamples timestamped signals onto a common timestamp grid by linear interpolation.
+ * <p>
+ * Signals sampled by different devices are stamped at slightly different times, and may have more or fewer samples than
+ * the grid. When a grid timestamp falls outside a signal's samples, the signal is linearly extrapolated from its two
+ * nearest samples, for at most the maximum extrapolation time, and held beyond it. Extrapolations are counted until the
+ * next {@link #reset()}, so they can be logged.
+ */
+public class SampleAligner {
+    private final double maximumExtrapolationSeconds;
+
+    private int extrapolatedSampleCount = 0;
+    private double maxExtrapolationSeconds = 0;
+
+    /**
+     * @param maximumExtrapolationSeconds how far past its first or last sample a signal may be extrapolated
+     */
+    public SampleAligner(double maximumExtrapolationSeconds) {
+        this.maximumExtrapolationSeconds = maximumExtrapolationSeconds;
+    }
+
+    /**
+     * Clears the extrapolation statistics. Call this once per alignment pass.
+     */
+    public void reset() {
+        extrapolatedSampleCount = 0;
+        maxExtrapolationSeconds = 0;
+    }
+
+    /**
+     * @param timestamps    the timestamps of the samples, in increasing order
+     * @param values        the samples. If its length doesn't match the timestamps', the samples can't be paired
+     *                      with their timestamps and the fallback value is used
+     * @param timestamp     the grid timestamp to get the signal's value at
+     * @param fallbackValue the value to use if the signal has no usable samples
+     * @return the value of the signal at the given timestamp
+     */
+    public double align(double[] timestamps, double[] values, double timestamp, double fallbackValue) {
+        return align(timestamps, values, timestamp, fallbackValue, false);
+    }
+
+    /**
+     * Like {@link #align(double[], double[], double, double)}, for an angle in rotations that wraps around.
+     * Interpolates through the shortest path between samples.
+     */
+    public double alignRotations(double[] timestamps, double[] values, double timestamp, double fallbackValue) {
+        return align(timestamps, values, timestamp, fallbackValue, true);
+    }
+
+    /**
+     * @return the amount of values extrapolated or taken from the fallback since the last reset
+     */
+    public int getExtrapolatedSampleCount() {
+        return extrapolatedSampleCount;
+    }
+
+    /**
+     * @return the furthest a signal was extrapolated since the last reset, in seconds
+     */
+    public double getMaxExtrapolationSeconds() {
+        return maxExtrapolationSeconds;
+    }
+
+    private double align(double[] timestamps, double[] values, double timestamp, double fallbackValue, boolean isRotations) {
+        final int sampleCount = values.length;
+
+        if (sampleCount == 0 || timestamps.length != sampleCount) {
+            extrapolatedSampleCount++;
+            return fallbackValue;
+        }
+
+        if (sampleCount == 1) {
+            recordExtrapolation(Math.abs(timestamp - timestamps[0]));
+            return values[0];
+        }
+
+        int segmentStart = 0;
+
+        while (segmentStart < sampleCount - 2 && timestamps[segmentStart + 1] <= timestamp)
+            segmentStart++;
+
+        final double segmentStartTime = timestamps[segmentStart];
+        final double segmentEndTime = timestamps[segmentStart + 1];
+
+        double targetTime = timestamp;
+
+        if (timestamp < segmentStartTime) {
+            recordExtrapolation(segmentStartTime - timestamp);
+            targetTime = Math.max(timestamp, segmentStartTime - maximumExtrapolationSeconds);
+        } else if (timestamp > segmentEndTime) {
+            recordExtrapolation(timestamp - segmentEndTime);
+            targetTime = Math.min(timestamp, segmentEndTime + maximumExtrapolationSeconds);
+        }
+
+        if (segmentEndTime <= segmentStartTime) return values[segmentStart + 1];
+
+        final double startValue = values[segmentStart];
+        final double difference = isRotations
+                ? MathUtil.inputModulus(values[segmentStart + 1] - startValue, -0.5, 0.5)
+                : values[segmentStart + 1] - startValue;
+
+        return startValue + difference * (targetTime - segmentStartTime) / (segmentEndTime - segmentStartTime);
+    }
+
+    private void recordExtrapolation(double extrapolationSeconds) {
+        if (extrapolationSeconds <= 0) return;
+
+        extrapolatedSampleCount++;
+        maxExtrapolationSeconds = Math.max(maxExtrapolationSeconds, extrapolationSeconds);
+    }
+}
@@ -0,0 +1,127 @@
+package frc.lib.util;
+
+/**
+ * A fixed-capacity ring buffer of primitive doubles, meant to be shared between exactly one producer thread and exactly
+ * one consumer thread.
+ * <p>
+ * Unlike a {@code Queue<Double>}, neither offering nor draining boxes the values, so it can be filled from a
+ * high-frequency thread (e.g. the {@link frc.lib.generic.OdometryThread OdometryThread}) without generating garbage.
+ * <p>
+ * Only the producer may call {@link #offer(double)} and {@link #isFull()}. Only the consumer may call
+ * {@link #capture()}, {@link #drainTo(double[])}, {@link #drain()} and {@link #clear()}.
+ */
+public class DoubleRingBuffer {
+    private final double[] buffer;
+    private final int mask;
+
+    /** Index of the next slot to write. Only written by the producer. */
+    private volatile long head = 0;
+    /** Index of the next slot to read. Only written by the consumer. */
+    private volatile long tail = 0;
+    /** The head at the last {@link #capture()}, which bounds what the consumer may drain. Only touched by the consumer. */
+    private long capturedHead = 0;
+
+    /**
+     * @param capacity the minimum amount of samples the buffer can hold before dropping new ones.
+     *                 This is rounded up to the next power of two.
+     */
+    public DoubleRingBuffer(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Ring buffer capacity must be positive, got " + capacity);
+
+        final int roundedCapacity = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+
+        buffer = new double[roundedCapacity];
+        mask = roundedCapacity - 1;
+    }
+
+    /**
+     * Adds a value to the buffer. Producer only.
+     *
+     * @param value the value to add
+     * @return false if the buffer is full and the value was dropped
+     */
+    public boolean offer(double value) {
+        final long currentHead = head;
+
+        if (currentHead - tail >= buffer.length) return false;
+
+        buffer[(int) (currentHead & mask)] = value;
+        head = currentHead + 1;
+
+        return true;
+    }
+
+    /**
+     * Producer only.
+     *
+     * @return whether the next offer would be dropped
+     */
+    public boolean isFull() {
+        return head - tail >= buffer.length;
+    }
+
+    /**
+     * Fixes the samples the next drains may return to the ones published so far. Consumer only.
+     * <p>
+     * Capturing several buffers while their producer is between writes lets the consumer drain all of them up to the
+     * same sample, without ever blocking the producer.
+     */
+    public void capture() {
+        capturedHead = head;
+    }
+
+    /**
+     * Moves as many captured values as fit into the destination array, oldest first. Consumer only.
+     *
+     * @param destination the array to fill, starting at index 0
+     * @return the amount of values written into the destination
+     */
+    public int drainTo(double[] destination) {
+        final long currentTail = tail;
+        final int count = (int) Math.min(capturedHead - currentTail, destination.length);
+
+        for (int i = 0; i < count; i++)
+            destination[i] = buffer[(int) ((currentTail + i) & mask)];
+
+        tail = currentTail + count;
+
+        return count;
+    }
+
+    /**
+     * Moves every captured value into a new, exactly sized array. Consumer only.
+     *
+     * @return the drained values, oldest first
+     */
+    public double[] drain() {
+        final double[] values = new double[capturedSize()];
+        drainTo(values);
+        return values;
+    }
+
+    /**
+     * Discards every available value. Consumer only.
+     */
+    public void clear() {
+        capturedHead = head;
+        tail = capturedHead;
+    }
+
+    public int size() {
+        return (int) (head - tail);
+    }
+
+    /**
+     * Consumer only.
+     *
+     * @return the amount of captured samples that weren't drained yet
+     */
+    public int capturedSize() {
+        return (int) (capturedHead - tail);
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+}
@@ -0,0 +1,175 @@
+package frc.lib.util;
+
+import org.littletonrobotics.junction.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Times the phases of a periodic loop, and logs how long each one took and how much it allocated every cycle.
+ * <p>
+ * Call {@link #startCycle()} at the start of the loop, and {@link #endPhase(Enum)} right after each phase, in order.
+ * {@link #endCycle()} then logs the cycle. When a cycle takes longer than the budget, the phases sorted from slowest to
+ * fastest are logged under "Overrun/", so the last overrun can be attributed without scrubbing through every phase.
+ * <p>
+ * Allocated bytes come from the JVM's per-thread allocation counter. If the JVM doesn't support it, they're logged as -1.
+ *
+ * @param <E> the phases of the loop
+ */
+public class LoopPhaseProfiler<E extends Enum<E>> {
+    private static final double NANOSECONDS_TO_MILLISECONDS = 1.0e-6;
+    private static final double NANOSECONDS_TO_SECONDS = 1.0e-9;
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = createThreadMXBean();
+
+    private final E[] phases;
+    private final double budgetSeconds;
+
+    private final String[] durationKeys, allocatedBytesKeys, allocationRateKeys;
+    private final String totalDurationKey, totalAllocatedBytesKey, overrunCountKey, overrunTimestampKey,
+            overrunDurationKey, overrunPhasesKey;
+
+    private final long[] phaseNanoseconds;
+    private final long[] phaseAllocatedBytes;
+    private final Integer[] phasesBySlowest;
+
+    private long cycleStartNanoseconds = 0, lastCycleStartNanoseconds = 0;
+    private long phaseStartNanoseconds = 0, phaseStartAllocatedBytes = 0, cycleStartAllocatedBytes = 0;
+    private long overrunCount = 0;
+
+    /**
+     * @param logKey        the key to log the phases under
+     * @param phaseClass    the class of the phases enum. Phases are named by their constants
+     * @param budgetSeconds cycles that take longer than this are counted and logged as overruns
+     */
+    public LoopPhaseProfiler(String logKey, Class<E> phaseClass, double budgetSeconds) {
+        this.phases = phaseClass.getEnumConstants();
+        this.budgetSeconds = budgetSeconds;
+
+        durationKeys = new String[phases.length];
+        allocatedBytesKeys = new String[phases.length];
+        allocationRateKeys = new String[phases.length];
+
+        for (E phase : phases) {
+            final String phaseKey = logKey + "/" + toDisplayName(phase);
+
+            durationKeys[phase.ordinal()] = phaseKey + "/DurationMilliseconds";
+            allocatedBytesKeys[phase.ordinal()] = phaseKey + "/AllocatedBytes";
+            allocationRateKeys[phase.ordinal()] = phaseKey + "/AllocationRateBytesPerSecond";
+        }
+
+        totalDurationKey = logKey + "/TotalDurationMilliseconds";
+        totalAllocatedBytesKey = logKey + "/TotalAllocatedBytes";
+        overrunCountKey = logKey + "/Overrun/Count";
+        overrunTimestampKey = logKey + "/Overrun/TimestampSeconds";
+        overrunDurationKey = logKey + "/Overrun/TotalDurationMilliseconds";
+        overrunPhasesKey = logKey + "/Overrun/SlowestPhases";
+
+        phaseNanoseconds = new long[phases.length];
+        phaseAllocatedBytes = new long[phases.length];
+        phasesBySlowest = new Integer[phases.length];
+    }
+
+    /**
+     * Starts timing a cycle, and its first phase.
+     */
+    public void startCycle() {
+        Arrays.fill(phaseNanoseconds, 0);
+        Arrays.fill(phaseAllocatedBytes, 0);
+
+        lastCycleStartNanoseconds = cycleStartNanoseconds;
+        cycleStartNanoseconds = System.nanoTime();
+        cycleStartAllocatedBytes = getAllocatedBytes();
+
+        phaseStartNanoseconds = cycleStartNanoseconds;
+        phaseStartAllocatedBytes = cycleStartAllocatedBytes;
+    }
+
+    /**
+     * Ends the given phase, and starts timing the next one.
+     * Ending the same phase more than once per cycle adds up its durations.
+     */
+    public void endPhase(E phase) {
+        final long currentNanoseconds = System.nanoTime();
+        final long currentAllocatedBytes = getAllocatedBytes();
+
+        phaseNanoseconds[phase.ordinal()] += currentNanoseconds - phaseStartNanoseconds;
+        phaseAllocatedBytes[phase.ordinal()] += currentAllocatedBytes - phaseStartAllocatedBytes;
+
+        phaseStartNanoseconds = currentNanoseconds;
+        phaseStartAllocatedBytes = currentAllocatedBytes;
+    }
+
+    /**
+     * Logs the cycle, and the overrun snapshot if the cycle went over the budget.
+     */
+    public void endCycle() {
+        final long cycleNanoseconds = System.nanoTime() - cycleStartNanoseconds;
+        final long cyclePeriodNanoseconds = lastCycleStartNanoseconds == 0 ? 0 : cycleStartNanoseconds - lastCycleStartNanoseconds;
+        final boolean isAllocationSupported = THREAD_MX_BEAN != null;
+
+        for (int i = 0; i < phases.length; i++) {
+            Logger.recordOutput(durationKeys[i], phaseNanoseconds[i] * NANOSECONDS_TO_MILLISECONDS);
+            Logger.recordOutput(allocatedBytesKeys[i], isAllocationSupported ? phaseAllocatedBytes[i] : -1);
+            Logger.recordOutput(allocationRateKeys[i], isAllocationSupported && cyclePeriodNanoseconds > 0
+                    ? phaseAllocatedBytes[i] / (cyclePeriodNanoseconds * NANOSECONDS_TO_SECONDS) : -1);
+        }
+
+        Logger.recordOutput(totalDurationKey, cycleNanoseconds * NANOSECONDS_TO_MILLISECONDS);
+        Logger.recordOutput(totalAllocatedBytesKey, isAllocationSupported ? getAllocatedBytes() - cycleStartAllocatedBytes : -1);
+
+        if (cycleNanoseconds * NANOSECONDS_TO_SECONDS > budgetSeconds) logOverrun(cycleNanoseconds);
+    }
+
+    /**
+     * Only called on overruns, so it may allocate.
+     */
+    private void logOverrun(long cycleNanoseconds) {
+        overrunCount++;
+
+        for (int i = 0; i < phasesBySlowest.length; i++) phasesBySlowest[i] = i;
+
+        Arrays.sort(phasesBySlowest, Comparator.comparingLong((Integer phase) -> phaseNanoseconds[phase]).reversed());
+
+        final String[] slowestPhases = new String[phasesBySlowest.length];
+
+        for (int i = 0; i < phasesBySlowest.length; i++) {
+            final int phase = phasesBySlowest[i];
+
+            slowestPhases[i] = String.format("%s: %.3f ms, %d bytes", toDisplayName(phases[phase]),
+                    phaseNanoseconds[phase] * NANOSECONDS_TO_MILLISECONDS, phaseAllocatedBytes[phase]);
+        }
+
+        Logger.recordOutput(overrunCountKey, overrunCount);
+        Logger.recordOutput(overrunTimestampKey, Logger.getTimestamp() / 1.0e6);
+        Logger.recordOutput(overrunDurationKey, cycleNanoseconds * NANOSECONDS_TO_MILLISECONDS);
+        Logger.recordOutput(overrunPhasesKey, slowestPhases);
+    }
+
+    private static long getAllocatedBytes() {
+        return THREAD_MX_BEAN == null ? 0 : THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+    }
+
+    private static String toDisplayName(Enum<?> phase) {
+        final StringBuilder displayName = new StringBuilder();
+
+        for (String word : phase.name().split("_")) {
+            if (word.isEmpty()) continue;
+
+            displayName.append(word.charAt(0)).append(word.substring(1).toLowerCase());
+        }
+
+        return displayName.toString();
+    }
+
+    private static com.sun.management.ThreadMXBean createThreadMXBean() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threadMXBean)
+                || !threadMXBean.isThreadAllocatedMemorySupported())
+            return null;
+
+        if (!threadMXBean.isThreadAllocatedMemoryEnabled()) threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        return threadMXBean;
+    }
+}
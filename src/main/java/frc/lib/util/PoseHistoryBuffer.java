@@ -0,0 +1,214 @@
+package frc.lib.util;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+
+import java.util.Optional;
+
+/**
+ * A history of timestamped 2d poses, stored as primitive x, y and rotation arrays in a circular buffer.
+ * <p>
+ * A drop-in for {@code TimeInterpolatableBuffer<Pose2d>}: samples older than the history size are dropped, and
+ * {@link #getSample(double)} interpolates between the two samples around the timestamp the same way {@link Pose2d#interpolate}
+ * does, along the twist between them. Unlike the TreeMap backed buffer, adding a sample doesn't box its timestamp or keep the
+ * pose, so it doesn't allocate. Samples must be added in increasing timestamp order. Not thread safe.
+ */
+public class PoseHistoryBuffer {
+    private final double historySizeSeconds;
+
+    private final double[] timestamps, xs, ys, thetas;
+    private int oldest = 0;
+    private int size = 0;
+
+    /** The scratch output of {@link #getSample(double)}, as [x, y, theta]. */
+    private final double[] sample = new double[3];
+
+    /**
+     * @param historySizeSeconds how long samples are kept, relative to the latest sample
+     * @param capacity           the most samples kept. Once full, the oldest sample is overwritten even if it's still
+     *                           inside the history size
+     */
+    public PoseHistoryBuffer(double historySizeSeconds, int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Pose history capacity must be positive, got " + capacity);
+
+        this.historySizeSeconds = historySizeSeconds;
+
+        timestamps = new double[capacity];
+        xs = new double[capacity];
+        ys = new double[capacity];
+        thetas = new double[capacity];
+    }
+
+    /**
+     * Adds a sample. A sample at the latest sample's timestamp replaces it, and a sample older than it is ignored.
+     */
+    public void addSample(double timestamp, Pose2d pose) {
+        addSample(timestamp, pose.getX(), pose.getY(), pose.getRotation().getRadians());
+    }
+
+    /**
+     * @see #addSample(double, Pose2d)
+     */
+    public void addSample(double timestamp, double x, double y, double thetaRadians) {
+        if (size > 0) {
+            final double latestTimestamp = getLatestTimestamp();
+
+            if (timestamp < latestTimestamp) return;
+            if (timestamp == latestTimestamp) size--;
+        }
+
+        while (size > 0 && timestamp - timestamps[oldest] >= historySizeSeconds) {
+            oldest = physicalIndex(1);
+            size--;
+        }
+
+        if (size == timestamps.length) {
+            oldest = physicalIndex(1);
+            size--;
+        }
+
+        final int index = physicalIndex(size);
+
+        timestamps[index] = timestamp;
+        xs[index] = x;
+        ys[index] = y;
+        thetas[index] = thetaRadians;
+        size++;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the timestamp of the latest sample. Only valid if the buffer isn't empty
+     */
+    public double getLatestTimestamp() {
+        return timestamps[physicalIndex(size - 1)];
+    }
+
+    public void clear() {
+        oldest = 0;
+        size = 0;
+    }
+
+    /**
+     * Allocates only the returned pose.
+     *
+     * @return the pose at the given timestamp, clamped to the oldest and latest samples, or an empty optional if there are
+     * no samples
+     */
+    public Optional<Pose2d> getSample(double timestamp) {
+        if (!getSample(timestamp, sample)) return Optional.empty();
+
+        return Optional.of(new Pose2d(sample[0], sample[1], new Rotation2d(sample[2])));
+    }
+
+    /**
+     * Like {@link #getSample(double)}, without allocating.
+     *
+     * @param poseOutput filled with the pose as [x, y, theta radians]
+     * @return false if there are no samples, in which case the output is untouched
+     */
+    public boolean getSample(double timestamp, double[] poseOutput) {
+        if (size == 0) return false;
+
+        if (timestamp <= timestamps[oldest]) {
+            copySample(oldest, poseOutput);
+            return true;
+        }
+
+        final int latest = physicalIndex(size - 1);
+
+        if (timestamp >= timestamps[latest]) {
+            copySample(latest, poseOutput);
+            return true;
+        }
+
+        final int upperIndex = findFirstAfter(timestamp);
+        final int upper = physicalIndex(upperIndex), lower = physicalIndex(upperIndex - 1);
+
+        if (timestamps[upper] == timestamp) {
+            copySample(upper, poseOutput);
+            return true;
+        }
+
+        final double t = (timestamp - timestamps[lower]) / (timestamps[upper] - timestamps[lower]);
+
+        interpolate(lower, upper, t, poseOutput);
+        return true;
+    }
+
+    /**
+     * @return the logical index of the first sample at or after the timestamp, which must be inside the samples
+     */
+    private int findFirstAfter(double timestamp) {
+        int low = 1, high = size - 1;
+
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+
+            if (timestamps[physicalIndex(middle)] < timestamp) low = middle + 1;
+            else high = middle;
+        }
+
+        return low;
+    }
+
+    /**
+     * Applies the scaled twist from the lower to the upper pose to the lower pose, like {@link Pose2d#interpolate}.
+     */
+    private void interpolate(int lower, int upper, double t, double[] poseOutput) {
+        final double startTheta = thetas[lower];
+        final double startCos = Math.cos(startTheta), startSin = Math.sin(startTheta);
+
+        // The transform from the lower pose to the upper one, in the lower pose's frame
+        final double globalDx = xs[upper] - xs[lower], globalDy = ys[upper] - ys[lower];
+        final double transformX = globalDx * startCos + globalDy * startSin;
+        final double transformY = -globalDx * startSin + globalDy * startCos;
+        final double transformTheta = Math.atan2(Math.sin(thetas[upper] - startTheta), Math.cos(thetas[upper] - startTheta));
+
+        // Pose2d.log
+        final double halfDtheta = transformTheta / 2;
+        final double cosMinusOne = Math.cos(transformTheta) - 1;
+        final double halfThetaByTanOfHalfDtheta = Math.abs(cosMinusOne) < 1e-9
+                ? 1.0 - 1.0 / 12.0 * transformTheta * transformTheta
+                : -(halfDtheta * Math.sin(transformTheta)) / cosMinusOne;
+
+        final double twistDx = (transformX * halfThetaByTanOfHalfDtheta + transformY * halfDtheta) * t;
+        final double twistDy = (transformY * halfThetaByTanOfHalfDtheta - transformX * halfDtheta) * t;
+        final double twistDtheta = transformTheta * t;
+
+        // Pose2d.exp
+        final double sinTheta = Math.sin(twistDtheta), cosTheta = Math.cos(twistDtheta);
+        final double s, c;
+
+        if (Math.abs(twistDtheta) < 1e-9) {
+            s = 1.0 - 1.0 / 6.0 * twistDtheta * twistDtheta;
+            c = 0.5 * twistDtheta;
+        } else {
+            s = sinTheta / twistDtheta;
+            c = (1 - cosTheta) / twistDtheta;
+        }
+
+        final double localX = twistDx * s - twistDy * c, localY = twistDx * c + twistDy * s;
+        final double theta = startTheta + twistDtheta;
+
+        poseOutput[0] = xs[lower] + localX * startCos - localY * startSin;
+        poseOutput[1] = ys[lower] + localX * startSin + localY * startCos;
+        poseOutput[2] = Math.atan2(Math.sin(theta), Math.cos(theta));
+    }
+
+    private void copySample(int index, double[] poseOutput) {
+        poseOutput[0] = xs[index];
+        poseOutput[1] = ys[index];
+        poseOutput[2] = thetas[index];
+    }
+
+    private int physicalIndex(int logicalIndex) {
+        final int index = oldest + logicalIndex;
+
+        return index >= timestamps.length ? index - timestamps.length : index;
+    }
+}
@@ -0,0 +1,67 @@
+package frc.lib.util;
+
+import java.util.Arrays;
+
+/**
+ * The maximum and percentiles of the latest samples of a value, e.g. how long something took over the last few seconds.
+ * <p>
+ * Doesn't allocate after construction, so it can be used to measure code that shouldn't allocate.
+ */
+public class RollingStatistics {
+    private final long[] samples;
+    private final long[] sortedSamples;
+
+    private int nextIndex = 0;
+    private int size = 0;
+
+    /**
+     * @param windowSize the amount of latest samples to compute the statistics over
+     */
+    public RollingStatistics(int windowSize) {
+        samples = new long[windowSize];
+        sortedSamples = new long[windowSize];
+    }
+
+    /**
+     * Adds a sample, replacing the oldest one once the window is full.
+     */
+    public void add(long sample) {
+        samples[nextIndex] = sample;
+        nextIndex = (nextIndex + 1) % samples.length;
+
+        if (size < samples.length) size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the largest sample in the window, or 0 if there are none
+     */
+    public long getMax() {
+        long max = 0;
+
+        for (int i = 0; i < size; i++) max = Math.max(max, samples[i]);
+
+        return max;
+    }
+
+    /**
+     * Uses the nearest-rank method, so the result is always one of the samples. Sorts a copy of the window, so prefer
+     * calling this once per publish rather than once per sample.
+     *
+     * @param percentile the percentile, between 0 and 1
+     * @return the sample at the given percentile of the window, or 0 if there are none
+     */
+    public long getPercentile(double percentile) {
+        if (size == 0) return 0;
+
+        System.arraycopy(samples, 0, sortedSamples, 0, size);
+        Arrays.sort(sortedSamples, 0, size);
+
+        final int rank = (int) Math.ceil(percentile * size);
+
+        return sortedSamples[Math.min(Math.max(rank, 1), size) - 1];
+    }
+}
@@ -0,0 +1,62 @@
+package frc.lib.util;
+
+/**
+ * Hands out reusable {@code double[]}s of an exact length, so arrays that must be sized by their sample count (e.g. logged
+ * inputs) don't have to be allocated every loop.
+ * <p>
+ * AdvantageKit doesn't copy logged arrays. The log receiver thread gets a shallow copy of every cycle's table, which can wait
+ * in its queue for up to {@link #RECEIVER_QUEUE_CAPACITY} cycles while the disk stalls, and the log writer compares each value
+ * with the one it wrote before. So every length has a pool of {@link #POOL_SIZE} arrays that are handed out in turn, and an
+ * array is only overwritten once every table that could reference it was written. This holds as long as each cache is
+ * asked for at most one array per cycle, e.g. one cache per log key.
+ * <p>
+ * A length's pool is created the first time it's requested, and its arrays the first time they're handed out.
+ */
+public class SampleArrayCache {
+    /** The capacity of AdvantageKit's log receiver queue. */
+    public static final int RECEIVER_QUEUE_CAPACITY = 500;
+    /** The queued tables, the one being written, the one the writer compares against, and the current cycle's. */
+    public static final int POOL_SIZE = RECEIVER_QUEUE_CAPACITY + 3;
+
+    private static final double[] EMPTY = new double[0];
+
+    private final double[][][] arrays;
+    private final int[] nextArray;
+
+    /**
+     * @param maximumLength the longest array that will be requested
+     */
+    public SampleArrayCache(int maximumLength) {
+        arrays = new double[maximumLength + 1][][];
+        nextArray = new int[maximumLength + 1];
+    }
+
+    /**
+     * Allocates only the first {@link #POOL_SIZE} times each length is requested.
+     *
+     * @param length the length of the array, at most the maximum length
+     * @return an array of exactly the given length, with unspecified contents
+     */
+    public double[] get(int length) {
+        if (length == 0) return EMPTY;
+
+        if (arrays[length] == null) arrays[length] = new double[POOL_SIZE][];
+
+        final int index = nextArray[length];
+
+        if (arrays[length][index] == null) arrays[length][index] = new double[length];
+
+        nextArray[length] = index + 1 == POOL_SIZE ? 0 : index + 1;
+
+        return arrays[length][index];
+    }
+
+    /**
+     * @return an array holding only the given sample, see {@link #get(int)}
+     */
+    public double[] getSingleSample(double sample) {
+        final double[] array = get(1);
+        array[0] = sample;
+        return array;
+    }
+}
@@ -0,0 +1,137 @@
+package frc.lib.util;
+
+/**
+ * A {@link DoubleRingBuffer} variant that stores a timestamp alongside every value.
+ * <p>
+ * The value and its timestamp are published together, so the consumer never sees one without the other.
+ * Like {@link DoubleRingBuffer}, it is meant to be shared between exactly one producer thread and one consumer thread.
+ */
+public class TimestampedDoubleRingBuffer {
+    private final double[] values;
+    private final double[] timestamps;
+    private final int mask;
+
+    /** Index of the next slot to write. Only written by the producer. */
+    private volatile long head = 0;
+    /** Index of the next slot to read. Only written by the consumer. */
+    private volatile long tail = 0;
+    /** The head at the last {@link #capture()}, which bounds what the consumer may drain. Only touched by the consumer. */
+    private long capturedHead = 0;
+
+    /**
+     * @param capacity the minimum amount of samples the buffer can hold before dropping new ones.
+     *                 This is rounded up to the next power of two.
+     */
+    public TimestampedDoubleRingBuffer(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Ring buffer capacity must be positive, got " + capacity);
+
+        final int roundedCapacity = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+
+        values = new double[roundedCapacity];
+        timestamps = new double[roundedCapacity];
+        mask = roundedCapacity - 1;
+    }
+
+    /**
+     * Adds a sample to the buffer. Producer only.
+     *
+     * @param value     the sampled value
+     * @param timestamp the time the value was measured, in seconds
+     * @return false if the buffer is full and the sample was dropped
+     */
+    public boolean offer(double value, double timestamp) {
+        final long currentHead = head;
+
+        if (currentHead - tail >= values.length) return false;
+
+        final int index = (int) (currentHead & mask);
+
+        values[index] = value;
+        timestamps[index] = timestamp;
+        head = currentHead + 1;
+
+        return true;
+    }
+
+    /**
+     * Producer only.
+     *
+     * @return whether the next offer would be dropped
+     */
+    public boolean isFull() {
+        return head - tail >= values.length;
+    }
+
+    /**
+     * Fixes the samples the next drains may return to the ones published so far. Consumer only.
+     * <p>
+     * Capturing several buffers while their producer is between writes lets the consumer drain all of them up to the
+     * same sample, without ever blocking the producer.
+     */
+    public void capture() {
+        capturedHead = head;
+    }
+
+    /**
+     * Moves as many captured samples as fit into the destination arrays, oldest first. Consumer only.
+     *
+     * @param valuesDestination     the array to write the values into, starting at index 0
+     * @param timestampsDestination the array to write the timestamps into, starting at index 0
+     * @return the amount of samples written
+     */
+    public int drainTo(double[] valuesDestination, double[] timestampsDestination) {
+        final long currentTail = tail;
+        final int count = (int) Math.min(capturedHead - currentTail, Math.min(valuesDestination.length, timestampsDestination.length));
+
+        for (int i = 0; i < count; i++) {
+            final int index = (int) ((currentTail + i) & mask);
+
+            valuesDestination[i] = values[index];
+            timestampsDestination[i] = timestamps[index];
+        }
+
+        tail = currentTail + count;
+
+        return count;
+    }
+
+    /**
+     * Moves every captured sample into new, exactly sized arrays. Consumer only.
+     *
+     * @return a two-element array holding the drained values followed by their timestamps, oldest first
+     */
+    public double[][] drain() {
+        final int count = capturedSize();
+        final double[][] samples = {new double[count], new double[count]};
+
+        drainTo(samples[0], samples[1]);
+
+        return samples;
+    }
+
+    /**
+     * Discards every available sample. Consumer only.
+     */
+    public void clear() {
+        capturedHead = head;
+        tail = capturedHead;
+    }
+
+    public int size() {
+        return (int) (head - tail);
+    }
+
+    /**
+     * Consumer only.
+     *
+     * @return the amount of captured samples that weren't drained yet
+     */
+    public int capturedSize() {
+        return (int) (capturedHead - tail);
+    }
+
+    public int capacity() {
+        return values.length;
+    }
+}
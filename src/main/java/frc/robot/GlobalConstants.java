@@ -3,25 +3,52 @@ package frc.robot;
 import edu.wpi.first.math.geometry.Pose3d;
 import edu.wpi.first.math.geometry.Rotation3d;
 import edu.wpi.first.math.geometry.Translation3d;
+import frc.lib.generic.ThreadScheduling;
 
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class GlobalConstants {
     public static final double ROBOT_PERIODIC_LOOP_TIME = 0.02;
+    /** How long robotPeriodic may take before it's logged as an overrun. AdvantageKit's logging shares the rest of the loop. */
+    public static final double ROBOT_PERIODIC_BUDGET_SECONDS = 0.015;
 
     public static final double ODOMETRY_FREQUENCY_HERTZ = 200.0;
+    /** Guards registration of signals to the {@link frc.lib.generic.OdometryThread OdometryThread}. Sampling itself is lock-free. */
     public static final Lock FASTER_THREAD_LOCK = new ReentrantLock();
+    /**
+     * How the odometry sampling threads are scheduled. Real-time priority takes CPU time from everything else, so only
+     * switch to it after comparing the logged jitter under "OdometryThread/" with and without it.
+     */
+    public static final ThreadScheduling FASTER_THREAD_SCHEDULING = ThreadScheduling.DEFAULT;
 
     public static final boolean IS_TUNING_MODE = true;
 
-    public static final boolean SHOULD_WRITE_LOGS = false; //for when the roborio doesn't have enough space...
-    public static final Mode CURRENT_MODE = Mode.REAL;
+    public static final LogWriterMode LOG_WRITER_MODE = LogWriterMode.BOUNDED;
+    /** The most the logs may take on the log drive, used by {@link LogWriterMode#BOUNDED}. */
+    public static final long LOG_DISK_BUDGET_BYTES = 1024L * 1024 * 1024;
+    /** The least free space to leave on the log drive, used by {@link LogWriterMode#BOUNDED}. */
+    public static final long LOG_MINIMUM_FREE_BYTES = 100L * 1024 * 1024;
+    /** Times every device in {@link frc.lib.generic.hardware.HardwareManager#update()}, and logs the results under "HardwareProfiler/". */
+    public static final boolean SHOULD_PROFILE_HARDWARE = false;
+    /** Can be overridden with <code>-Drobot.mode=REPLAY</code>, e.g. by {@link frc.lib.generic.advantagekit.BatchReplay}. */
+    public static final Mode CURRENT_MODE = Mode.valueOf(System.getProperty("robot.mode", Mode.REAL.name()));
+    /** Runs replays without waiting for each cycle's period, and prints their throughput when they end. */
+    public static final boolean SHOULD_REPLAY_AS_FAST_AS_POSSIBLE = true;
 
     public enum Mode {
         REAL, SIMULATION, REPLAY
     }
 
+    public enum LogWriterMode {
+        /** Don't write logs, for when the roborio doesn't have enough space... */
+        DISABLED,
+        /** Write logs to the deploy directory, without limiting their size. */
+        UNBOUNDED,
+        /** Write logs to the USB drive if there is one, compressing and deleting old logs to stay within the disk budget. */
+        BOUNDED
+    }
+
     public static final double GRAVITY = 9.80665;
     public static final double MINIMUM_ACCELERATION_FOR_COLLISION = 25; //todo: Tune
 
@@ -8,6 +8,7 @@ import edu.wpi.first.wpilibj.smartdashboard.Field2d;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import frc.lib.generic.hardware.HardwareManager;
+import frc.lib.util.LoopPhaseProfiler;
 import org.littletonrobotics.junction.LoggedRobot;
 
 import static frc.robot.RobotContainer.POSE_ESTIMATOR;
@@ -15,8 +16,14 @@ import static frc.robot.RobotContainer.SWERVE;
 import static frc.robot.poseestimation.photoncamera.CameraFactory.VISION_SIMULATION;
 
 public class Robot extends LoggedRobot {
+    private enum LoopPhase {
+        COMMAND_SCHEDULER, HARDWARE_MANAGER, ODOMETRY, POSE_ESTIMATOR
+    }
+
     private Command autonomousCommand;
     private final CommandScheduler commandScheduler = CommandScheduler.getInstance();
+    private final LoopPhaseProfiler<LoopPhase> loopProfiler =
+            new LoopPhaseProfiler<>("LoopProfiler", LoopPhase.class, GlobalConstants.ROBOT_PERIODIC_BUDGET_SECONDS);
     private RobotContainer robotContainer;
 
 
@@ -24,15 +31,25 @@ public class Robot extends LoggedRobot {
     public void robotInit() {
         robotContainer = new RobotContainer();
         HardwareManager.initialize(this);
+
+        GlobalConstants.FASTER_THREAD_SCHEDULING.applyToMainThread();
     }
 
     @Override
     public void robotPeriodic() {
+        loopProfiler.startCycle();
+
         commandScheduler.run();
+        loopProfiler.endPhase(LoopPhase.COMMAND_SCHEDULER);
         HardwareManager.update();
+        loopProfiler.endPhase(LoopPhase.HARDWARE_MANAGER);
 
         SWERVE.periodicallyUpdateFromOdometry();
+        loopProfiler.endPhase(LoopPhase.ODOMETRY);
         POSE_ESTIMATOR.periodic();
+        loopProfiler.endPhase(LoopPhase.POSE_ESTIMATOR);
+
+        loopProfiler.endCycle();
     }
 
     @Override
@@ -5,30 +5,86 @@ import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Pose3d;
 import edu.wpi.first.math.geometry.Transform3d;
 import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.RawSubscriber;
+import edu.wpi.first.networktables.TimestampedRaw;
+import edu.wpi.first.wpilibj.Notifier;
+import frc.lib.util.SampleArrayCache;
 import frc.robot.GlobalConstants;
 import org.littletonrobotics.junction.Logger;
 import org.photonvision.EstimatedRobotPose;
 import org.photonvision.PhotonCamera;
 import org.photonvision.PhotonPoseEstimator;
+import org.photonvision.common.dataflow.structures.Packet;
 import org.photonvision.targeting.PhotonPipelineResult;
 import org.photonvision.targeting.PhotonTrackedTarget;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static frc.robot.GlobalConstants.CURRENT_MODE;
 import static frc.robot.poseestimation.photoncamera.CameraFactory.VISION_SIMULATION;
-import static frc.robot.poseestimation.poseestimator.PoseEstimatorConstants.MAXIMUM_AMBIGUITY;
-import static frc.robot.poseestimation.poseestimator.PoseEstimatorConstants.TAG_ID_TO_POSE;
-
+import static frc.robot.poseestimation.poseestimator.PoseEstimatorConstants.*;
+
+/**
+ * A PhotonVision camera whose frames are processed by its own worker.
+ * <p>
+ * The worker reads every frame the camera published since its last tick, runs the pose estimator on each and queues the
+ * result as an immutable {@link CameraObservation}. The main loop only drains the queue into the logged inputs, so replay
+ * sees exactly what the main loop used, and every camera's processing stays off the main loop.
+ * <p>
+ * {@link PhotonCamera#getLatestResult()} only returns the newest frame, and decodes it even when it was already seen, so
+ * the worker subscribes to the camera's raw results itself, with every published value queued, and only decodes the new
+ * ones. Frames that still get lost, because the subscriber's queue or the pending observations overflowed, are counted
+ * in {@code DroppedFrames/<camera>}.
+ */
 public class AprilTagsCamera extends PhotonCameraIO {
+    private static final Pose2d[] NO_TAG_POSES = new Pose2d[0];
+    /** Frames published between two worker ticks beyond this are lost. The worker is much faster than any camera. */
+    private static final int RAW_RESULT_QUEUE_CAPACITY = 20;
+    private static final int MAXIMUM_DRAINED_OBSERVATIONS = MAXIMUM_PENDING_CAMERA_OBSERVATIONS + 1;
+
+    /** A frame that has a usable pose estimate. */
+    private record CameraObservation(Pose3d robotPose, double timestamp, int visibleTags, double averageDistanceFromTags,
+                                     Pose2d[] usedTagPoses, double bestTargetPitch) { }
+
     private final PhotonCamera photonCamera;
+    private final String usedTagsKey, cameraPitchKey, droppedFramesKey;
     private final org.photonvision.PhotonPoseEstimator photonPoseEstimator;
 
+    /** Only read by the worker. */
+    private final RawSubscriber rawResultSubscriber;
+    /** Only touched by the worker. */
+    private final Packet packet = new Packet(1);
+
+    private final ConcurrentLinkedQueue<CameraObservation> observations = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingObservations = new AtomicInteger();
+    /** Only written by the worker. */
+    private volatile long droppedFrames = 0;
+    private final Notifier worker;
+
+    /* Only touched by the main loop. Int arrays and poses are copied when logged, so one array per length is enough. */
+    private final List<CameraObservation> drainedObservations = new ArrayList<>(MAXIMUM_DRAINED_OBSERVATIONS);
+    private final SampleArrayCache
+            resultTimestampArrays = new SampleArrayCache(MAXIMUM_DRAINED_OBSERVATIONS),
+            averageDistanceArrays = new SampleArrayCache(MAXIMUM_DRAINED_OBSERVATIONS);
+    private final int[][] visibleTagArrays = new int[MAXIMUM_DRAINED_OBSERVATIONS + 1][];
+    private final Pose3d[][] robotPoseArrays = new Pose3d[MAXIMUM_DRAINED_OBSERVATIONS + 1][];
+
     public AprilTagsCamera(String cameraName, Transform3d robotCenterToCamera) {
         super(cameraName, robotCenterToCamera);
 
         photonCamera = new PhotonCamera(cameraName);
+        usedTagsKey = "UsedTags/" + cameraName;
+        cameraPitchKey = "CameraPitch/" + cameraName;
+        droppedFramesKey = "DroppedFrames/" + cameraName;
+        rawResultSubscriber = NetworkTableInstance.getDefault().getTable("photonvision").getSubTable(cameraName)
+                .getRawTopic("rawBytes").subscribe("rawBytes", new byte[0],
+                        PubSubOption.sendAll(true), PubSubOption.pollStorage(RAW_RESULT_QUEUE_CAPACITY));
         photonPoseEstimator = new org.photonvision.PhotonPoseEstimator(
                 AprilTagFields.k2024Crescendo.loadAprilTagLayoutField(),
                 org.photonvision.PhotonPoseEstimator.PoseStrategy.MULTI_TAG_PNP_ON_COPROCESSOR,
@@ -39,25 +95,70 @@ public class AprilTagsCamera extends PhotonCameraIO {
 
         if (GlobalConstants.Mode.SIMULATION == CURRENT_MODE)
             VISION_SIMULATION.addCamera(photonCamera, robotCenterToCamera);
+
+        for (int length = 0; length < visibleTagArrays.length; length++) {
+            visibleTagArrays[length] = new int[length];
+            robotPoseArrays[length] = new Pose3d[length];
+        }
+
+        worker = new Notifier(this::processNewResults);
+        worker.setName("Camera" + cameraName);
+        worker.startPeriodic(CAMERA_POLL_PERIOD_SECONDS);
     }
 
-    private void logVisibleTags(boolean hasResult, Optional<EstimatedRobotPose> optionalEstimatedRobotPose) {
-        if (!hasResult) {
-            Logger.recordOutput("UsedTags/" + photonCamera.getName(), new Pose2d[0]);
-            return;
+    /**
+     * Runs on the worker. Only decodes frames that arrived since the last tick.
+     */
+    private void processNewResults() {
+        final TimestampedRaw[] rawResults = rawResultSubscriber.readQueue();
+
+        // A full queue may have dropped its oldest frames. How many isn't known, so it's counted as one
+        if (rawResults.length == RAW_RESULT_QUEUE_CAPACITY) droppedFrames++;
+
+        for (TimestampedRaw rawResult : rawResults) {
+            if (rawResult.value.length == 0) continue;
+
+            packet.clear();
+            packet.setData(rawResult.value);
+
+            final PhotonPipelineResult result = PhotonPipelineResult.serde.unpack(packet);
+
+            // The same timestamp PhotonCamera#getLatestResult gives, from when the frame arrived, minus the pipeline's latency
+            result.setTimestampSeconds(rawResult.timestamp / 1.0e6 - result.getLatencyMillis() / 1.0e3);
+            processResult(result);
         }
+    }
 
-        final EstimatedRobotPose estimatedRobotPose = optionalEstimatedRobotPose.get();
-        final Pose2d[] visibleTagPoses = new Pose2d[estimatedRobotPose.targetsUsed.size()];
+    private void processResult(PhotonPipelineResult result) {
+        final Optional<EstimatedRobotPose> optionalEstimatedRobotPose = photonPoseEstimator.update(result);
 
-        for (int i = 0; i < visibleTagPoses.length; i++) {
-            final int currentId = estimatedRobotPose.targetsUsed.get(i).getFiducialId();
-            final Pose2d currentTagPose = TAG_ID_TO_POSE.get(currentId).toPose2d();
+        if (!hasResult(optionalEstimatedRobotPose)) return;
 
-            visibleTagPoses[i] = currentTagPose;
+        final EstimatedRobotPose estimatedRobotPose = optionalEstimatedRobotPose.get();
+        final PhotonTrackedTarget bestTarget = result.getBestTarget();
+
+        observations.offer(new CameraObservation(
+                estimatedRobotPose.estimatedPose,
+                estimatedRobotPose.timestampSeconds,
+                estimatedRobotPose.targetsUsed.size(),
+                calculateAverageDistanceFromTags(result),
+                getUsedTagPoses(estimatedRobotPose),
+                bestTarget == null ? Double.NaN : bestTarget.getPitch()
+        ));
+
+        if (pendingObservations.incrementAndGet() > MAXIMUM_PENDING_CAMERA_OBSERVATIONS && observations.poll() != null) {
+            pendingObservations.decrementAndGet();
+            droppedFrames++;
         }
+    }
+
+    private Pose2d[] getUsedTagPoses(EstimatedRobotPose estimatedRobotPose) {
+        final Pose2d[] usedTagPoses = new Pose2d[estimatedRobotPose.targetsUsed.size()];
 
-        Logger.recordOutput("UsedTags/" + photonCamera.getName(), visibleTagPoses);
+        for (int i = 0; i < usedTagPoses.length; i++)
+            usedTagPoses[i] = TAG_ID_TO_POSE_2D.get(estimatedRobotPose.targetsUsed.get(i).getFiducialId());
+
+        return usedTagPoses;
     }
 
     private boolean hasResult(Optional<EstimatedRobotPose> optionalEstimatedRobotPose) {
@@ -71,7 +172,7 @@ public class AprilTagsCamera extends PhotonCameraIO {
         return estimatedRobotPose.targetsUsed.get(0).getPoseAmbiguity() < MAXIMUM_AMBIGUITY;
     }
 
-    private double getAverageDistanceFromTags(PhotonPipelineResult result) {
+    private double calculateAverageDistanceFromTags(PhotonPipelineResult result) {
         final List<PhotonTrackedTarget> targets = result.targets;
         double distanceSum = 0;
 
@@ -85,26 +186,44 @@ public class AprilTagsCamera extends PhotonCameraIO {
 
     @Override
     protected void refreshInputs(CameraInputsAutoLogged inputs) {
-        final PhotonPipelineResult latestResult = photonCamera.getLatestResult();
-        final Optional<EstimatedRobotPose> optionalEstimatedRobotPose = photonPoseEstimator.update(photonCamera.getLatestResult());
+        CameraObservation observation;
+
+        drainedObservations.clear();
+
+        // Bounded, so the worker can't outpace the drain. Whatever is left waits for the next loop
+        while (drainedObservations.size() < MAXIMUM_DRAINED_OBSERVATIONS && (observation = observations.poll()) != null) {
+            pendingObservations.decrementAndGet();
+            drainedObservations.add(observation);
+        }
 
-        inputs.hasResult = hasResult(optionalEstimatedRobotPose);
+        final int observationCount = drainedObservations.size();
 
-        if (inputs.hasResult) {
-            final EstimatedRobotPose estimatedRobotPose = optionalEstimatedRobotPose.get();
+        inputs.resultTimestamps = resultTimestampArrays.get(observationCount);
+        inputs.visibleTags = visibleTagArrays[observationCount];
+        inputs.averageDistancesFromTags = averageDistanceArrays.get(observationCount);
+        inputs.estimatedRobotPoses = robotPoseArrays[observationCount];
 
-            if (photonCamera.getLatestResult().getBestTarget() != null)
-                Logger.recordOutput("CameraPitch/" + photonCamera.getName(), photonCamera.getLatestResult().getBestTarget().getPitch());
+        Logger.recordOutput(droppedFramesKey, droppedFrames);
 
-            inputs.estimatedRobotPose = estimatedRobotPose.estimatedPose;
-            inputs.lastResultTimestamp = estimatedRobotPose.timestampSeconds;
-            inputs.visibleTags = estimatedRobotPose.targetsUsed.size();
-            inputs.averageDistanceFromTags = getAverageDistanceFromTags(latestResult);
-        } else {
-            inputs.visibleTags = 0;
-            inputs.estimatedRobotPose = new Pose3d();
+        if (observationCount == 0) {
+            Logger.recordOutput(usedTagsKey, NO_TAG_POSES);
+            return;
         }
 
-        logVisibleTags(inputs.hasResult, optionalEstimatedRobotPose);
+        for (int i = 0; i < observationCount; i++) {
+            observation = drainedObservations.get(i);
+
+            inputs.resultTimestamps[i] = observation.timestamp();
+            inputs.visibleTags[i] = observation.visibleTags();
+            inputs.averageDistancesFromTags[i] = observation.averageDistanceFromTags();
+            inputs.estimatedRobotPoses[i] = observation.robotPose();
+        }
+
+        final CameraObservation latestObservation = drainedObservations.get(observationCount - 1);
+
+        if (!Double.isNaN(latestObservation.bestTargetPitch()))
+            Logger.recordOutput(cameraPitchKey, latestObservation.bestTargetPitch());
+
+        Logger.recordOutput(usedTagsKey, latestObservation.usedTagPoses());
     }
 }
@@ -8,60 +8,61 @@ import org.littletonrobotics.junction.Logger;
 
 public class PhotonCameraIO {
     private final String name;
+    private final String logKey;
     private final Transform3d robotCenterToCamera;
 
     private final CameraInputsAutoLogged inputs = new CameraInputsAutoLogged();
 
-    private double lastUpdatedTimestamp;
-
     public PhotonCameraIO(String name, Transform3d robotCenterToCamera) {
         this.name = name;
+        this.logKey = "Cameras/" + name;
         this.robotCenterToCamera = robotCenterToCamera;
     }
 
-    public double getLastResultTimestamp() {
-        return inputs.lastResultTimestamp;
+    public String getName() {
+        return name;
     }
 
-    public int getVisibleTags() {
-        return inputs.visibleTags;
+    /**
+     * @return the amount of frames received since the last refresh, in the order the camera took them
+     */
+    public int getResultCount() {
+        return inputs.resultTimestamps.length;
     }
 
-    public double getAverageDistanceFromTags() {
-        return inputs.averageDistanceFromTags;
+    public double getResultTimestamp(int index) {
+        return inputs.resultTimestamps[index];
     }
 
-    public boolean hasNewResult() {
-        return inputs.hasResult && inputs.averageDistanceFromTags != 0 && isNewTimestamp();
+    public int getVisibleTags(int index) {
+        return inputs.visibleTags[index];
     }
 
-    public Pose2d getRobotPose() {
-        return inputs.estimatedRobotPose.toPose2d();
+    public double getAverageDistanceFromTags(int index) {
+        return inputs.averageDistancesFromTags[index];
     }
 
-    protected void refreshInputs(CameraInputsAutoLogged inputs) { }
+    public Pose2d getRobotPose(int index) {
+        return inputs.estimatedRobotPoses[index].toPose2d();
+    }
 
-    public void refresh() {
-        refreshInputs(inputs);
-        Logger.processInputs("Cameras/" + name, inputs);
+    public Pose3d getRobotPose3d(int index) {
+        return inputs.estimatedRobotPoses[index];
     }
 
-    private boolean isNewTimestamp() {
-        if (lastUpdatedTimestamp == getLastResultTimestamp())
-            return false;
+    protected void refreshInputs(CameraInputsAutoLogged inputs) { }
 
-        lastUpdatedTimestamp = getLastResultTimestamp();
-        return true;
+    public void refresh() {
+        refreshInputs(inputs);
+        Logger.processInputs(logKey, inputs);
     }
 
     @AutoLog
     public static class CameraInputs {
-        public boolean hasResult = false;
-        public int visibleTags = 0;
-
-        public double lastResultTimestamp = 0;
-        public double averageDistanceFromTags = 0;
-
-        public Pose3d estimatedRobotPose = new Pose3d();
+        /* Every frame with a usable pose since the last refresh, oldest first. */
+        public double[] resultTimestamps = new double[0];
+        public int[] visibleTags = new int[0];
+        public double[] averageDistancesFromTags = new double[0];
+        public Pose3d[] estimatedRobotPoses = new Pose3d[0];
     }
 }
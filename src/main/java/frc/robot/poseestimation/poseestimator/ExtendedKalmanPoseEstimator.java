@@ -0,0 +1,525 @@
+package frc.robot.poseestimation.poseestimator;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.geometry.Twist2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import frc.lib.generic.advantagekit.PackedArrayOutput;
+import frc.lib.util.PoseHistoryBuffer;
+import org.ejml.simple.SimpleMatrix;
+
+import java.util.Arrays;
+
+import static frc.robot.GlobalConstants.ODOMETRY_FREQUENCY_HERTZ;
+import static frc.robot.poseestimation.poseestimator.PoseEstimatorConstants.*;
+
+/**
+ * An extended Kalman filter over the robot's pose and the offset between the gyro's yaw and the field heading.
+ * <p>
+ * Every odometry tick predicts the state with the wheels' twist and grows the covariance with how far the wheels moved,
+ * then corrects the heading with the gyro's yaw. Vision corrects the state at the time its frame was taken, through the
+ * odometry pose history, and the correction is carried forward to the current time.
+ * <p>
+ * The state is {@code [x, y, theta, gyro offset]}, where the gyro's yaw is theta plus the offset, so vision can correct
+ * the heading without fighting the gyro. Every matrix is a fixed-size primitive array, so once constructed, the filter
+ * itself doesn't allocate.
+ */
+public class ExtendedKalmanPoseEstimator implements RobotPoseEstimator {
+    private static final int STATE_SIZE = 4;
+    private static final int X = 0, Y = 1, THETA = 2, GYRO_OFFSET = 3;
+    private static final double POSE_BUFFER_SIZE_SECONDS = 2.0;
+
+    private final double[] state = new double[STATE_SIZE];
+    /** Row major. */
+    private final double[] covariance = new double[STATE_SIZE * STATE_SIZE];
+    private boolean isGyroOffsetInitialized = false;
+
+    private double odometryX = 0, odometryY = 0, odometryTheta = 0;
+    private double lastGyroYawRadians = Double.NaN;
+    private double lastOdometryTimestamp = Double.NaN;
+
+    private final PoseHistoryBuffer odometryPoseHistory =
+            new PoseHistoryBuffer(POSE_BUFFER_SIZE_SECONDS, (int) Math.ceil(POSE_BUFFER_SIZE_SECONDS * ODOMETRY_FREQUENCY_HERTZ * 1.5));
+
+    /* Scratch space for the vision update and gating */
+    private final double[] odometrySample = new double[3];
+    private final double[] estimateAtTime = new double[3];
+    private final double[] innovation = new double[3];
+    private final double[] innovationCovarianceInverse = new double[9];
+    private final double[] gain = new double[STATE_SIZE * 3];
+    private final double[] previousCovariance = new double[STATE_SIZE * STATE_SIZE];
+
+    /**
+     * Row major, 3 by twice the module count. Maps the modules' x and y deltas to the robot's twist, like
+     * {@link edu.wpi.first.math.kinematics.SwerveDriveKinematics#toTwist2d}, without allocating.
+     */
+    private final double[] forwardKinematics;
+    private final double[] lastModuleDistances;
+
+    private Pose2d estimatedPose = null, odometryPose = null;
+
+    private final PackedArrayOutput
+            estimatedPoseOutput = new PackedArrayOutput("Poses/Robot/EstimatedPose", PackedArrayOutput.POSE_2D_LENGTH, 1),
+            odometryPoseOutput = new PackedArrayOutput("Poses/Robot/OdometryPose", PackedArrayOutput.POSE_2D_LENGTH, 1);
+
+    /**
+     * @param moduleLocations the locations of the swerve modules relative to the robot's center, in the order of the
+     *                        odometry observations' wheel positions
+     */
+    public ExtendedKalmanPoseEstimator(Translation2d... moduleLocations) {
+        forwardKinematics = createForwardKinematics(moduleLocations);
+        lastModuleDistances = new double[moduleLocations.length];
+
+        resetCovariance(EKF_INITIAL_STD);
+    }
+
+    @Override
+    public void addOdometryObservation(OdometryObservation observation) {
+        final SwerveModulePosition[] modulePositions = observation.wheelPositions().positions;
+        final int columns = lastModuleDistances.length * 2;
+        double dx = 0, dy = 0, dtheta = 0;
+
+        for (int module = 0; module < lastModuleDistances.length; module++) {
+            final double distanceDelta = modulePositions[module].distanceMeters - lastModuleDistances[module];
+            final double moduleDx = distanceDelta * modulePositions[module].angle.getCos();
+            final double moduleDy = distanceDelta * modulePositions[module].angle.getSin();
+
+            lastModuleDistances[module] = modulePositions[module].distanceMeters;
+
+            dx += forwardKinematics[module * 2] * moduleDx + forwardKinematics[module * 2 + 1] * moduleDy;
+            dy += forwardKinematics[columns + module * 2] * moduleDx + forwardKinematics[columns + module * 2 + 1] * moduleDy;
+            dtheta += forwardKinematics[2 * columns + module * 2] * moduleDx + forwardKinematics[2 * columns + module * 2 + 1] * moduleDy;
+        }
+
+        addOdometryTwist(
+                observation.timestamp(),
+                dx, dy, dtheta,
+                observation.gyroAngle() == null ? Double.NaN : observation.gyroAngle().getRadians()
+        );
+    }
+
+    @Override
+    public void addVisionObservation(VisionObservation observation) {
+        addVisionMeasurement(
+                observation.timestamp(),
+                observation.visionPose().getX(),
+                observation.visionPose().getY(),
+                observation.visionPose().getRotation().getRadians(),
+                observation.stdDevs().get(0, 0),
+                observation.stdDevs().get(1, 0),
+                observation.stdDevs().get(2, 0)
+        );
+    }
+
+    @Override
+    public double getSquaredMahalanobisDistance(VisionObservation observation) {
+        return getSquaredMahalanobisDistance(
+                observation.timestamp(),
+                observation.visionPose().getX(),
+                observation.visionPose().getY(),
+                observation.visionPose().getRotation().getRadians(),
+                observation.stdDevs().get(0, 0),
+                observation.stdDevs().get(1, 0),
+                observation.stdDevs().get(2, 0)
+        );
+    }
+
+    @Override
+    public Pose2d getEstimatedPoseAt(double timestamp) {
+        if (!computeEstimateAtTime(timestamp)) return null;
+
+        return new Pose2d(estimateAtTime[0], estimateAtTime[1], new Rotation2d(estimateAtTime[2]));
+    }
+
+    @Override
+    public double getTranslationStdDev() {
+        return Math.sqrt(Math.max(getVariance(X), getVariance(Y)));
+    }
+
+    @Override
+    public void resetPose(Pose2d initialPose) {
+        state[X] = odometryX = initialPose.getX();
+        state[Y] = odometryY = initialPose.getY();
+        state[THETA] = odometryTheta = initialPose.getRotation().getRadians();
+        state[GYRO_OFFSET] = 0;
+
+        isGyroOffsetInitialized = false;
+        lastGyroYawRadians = Double.NaN;
+        lastOdometryTimestamp = Double.NaN;
+
+        resetCovariance(EKF_RESET_STD);
+        odometryPoseHistory.clear();
+        invalidatePoses();
+    }
+
+    @Override
+    public Pose2d getEstimatedPose() {
+        if (estimatedPose == null) estimatedPose = new Pose2d(state[X], state[Y], new Rotation2d(state[THETA]));
+
+        return estimatedPose;
+    }
+
+    @Override
+    public Pose2d getOdometryPose() {
+        if (odometryPose == null) odometryPose = new Pose2d(odometryX, odometryY, new Rotation2d(odometryTheta));
+
+        return odometryPose;
+    }
+
+    @Override
+    public void logPoses() {
+        estimatedPoseOutput.start(1);
+        estimatedPoseOutput.setPose(0, state[X], state[Y], state[THETA]);
+        estimatedPoseOutput.record();
+
+        odometryPoseOutput.start(1);
+        odometryPoseOutput.setPose(0, odometryX, odometryY, odometryTheta);
+        odometryPoseOutput.record();
+    }
+
+    /**
+     * @return the variance of a state variable, ordered x, y, theta, gyro offset
+     */
+    double getVariance(int stateIndex) {
+        return covariance[stateIndex * STATE_SIZE + stateIndex];
+    }
+
+    /**
+     * Predicts the state with one odometry tick, then corrects it with the gyro.
+     *
+     * @param dx             the robot relative forward distance the wheels moved, in meters
+     * @param dy             the robot relative leftwards distance the wheels moved, in meters
+     * @param dtheta         the rotation the wheels measured, in radians
+     * @param gyroYawRadians the gyro's yaw at the tick, or NaN if the gyro is disconnected
+     */
+    void addOdometryTwist(double timestamp, double dx, double dy, double dtheta, double gyroYawRadians) {
+        final double deltaSeconds = Double.isNaN(lastOdometryTimestamp) ? 0 : Math.max(timestamp - lastOdometryTimestamp, 0);
+
+        lastOdometryTimestamp = timestamp;
+
+        final double odometryDtheta = Double.isNaN(gyroYawRadians) || Double.isNaN(lastGyroYawRadians)
+                ? dtheta
+                : MathUtil.angleModulus(gyroYawRadians - lastGyroYawRadians);
+
+        if (!Double.isNaN(gyroYawRadians)) lastGyroYawRadians = gyroYawRadians;
+
+        odometryTheta = applyTwist(odometryX, odometryY, odometryTheta, dx, dy, odometryDtheta, odometrySample);
+        odometryX = odometrySample[0];
+        odometryY = odometrySample[1];
+        odometryPoseHistory.addSample(timestamp, odometryX, odometryY, odometryTheta);
+
+        predict(dx, dy, dtheta, deltaSeconds);
+
+        if (!Double.isNaN(gyroYawRadians)) correctWithGyro(gyroYawRadians);
+
+        invalidatePoses();
+    }
+
+    /**
+     * Corrects the state with a vision pose, taken at the given timestamp. Poses older than the odometry history are ignored.
+     */
+    void addVisionMeasurement(double timestamp, double x, double y, double theta,
+                              double xStd, double yStd, double thetaStd) {
+        if (!computeInnovation(timestamp, x, y, theta, xStd, yStd, thetaStd)) return;
+
+        final double sampleX = odometrySample[0], sampleY = odometrySample[1], sampleTheta = odometrySample[2];
+        final double estimateX = estimateAtTime[0], estimateY = estimateAtTime[1], estimateTheta = estimateAtTime[2];
+        final double sampleThetaFromCurrent = sampleTheta - odometryTheta;
+
+        // K = P * H^T * S^-1, where H selects x, y and theta
+        for (int row = 0; row < STATE_SIZE; row++) {
+            for (int column = 0; column < 3; column++) {
+                double sum = 0;
+
+                for (int k = 0; k < 3; k++)
+                    sum += covariance[row * STATE_SIZE + k] * innovationCovarianceInverse[k * 3 + column];
+
+                gain[row * 3 + column] = sum;
+            }
+        }
+
+        double correctedX = estimateX, correctedY = estimateY, correctedTheta = estimateTheta;
+
+        for (int k = 0; k < 3; k++) {
+            correctedX += gain[X * 3 + k] * innovation[k];
+            correctedY += gain[Y * 3 + k] * innovation[k];
+            correctedTheta += gain[THETA * 3 + k] * innovation[k];
+            state[GYRO_OFFSET] += gain[GYRO_OFFSET * 3 + k] * innovation[k];
+        }
+
+        // Carry the correction forward by the odometry since the vision's timestamp
+        final double forwardX = rotateX(odometryX - sampleX, odometryY - sampleY, -sampleTheta);
+        final double forwardY = rotateY(odometryX - sampleX, odometryY - sampleY, -sampleTheta);
+
+        state[X] = correctedX + rotateX(forwardX, forwardY, correctedTheta);
+        state[Y] = correctedY + rotateY(forwardX, forwardY, correctedTheta);
+        state[THETA] = MathUtil.angleModulus(correctedTheta - sampleThetaFromCurrent);
+        state[GYRO_OFFSET] = MathUtil.angleModulus(state[GYRO_OFFSET]);
+
+        // P = (I - K * H) * P
+        System.arraycopy(covariance, 0, previousCovariance, 0, covariance.length);
+
+        for (int row = 0; row < STATE_SIZE; row++) {
+            for (int column = 0; column < STATE_SIZE; column++) {
+                double sum = 0;
+
+                for (int k = 0; k < 3; k++)
+                    sum += gain[row * 3 + k] * previousCovariance[k * STATE_SIZE + column];
+
+                covariance[row * STATE_SIZE + column] -= sum;
+            }
+        }
+
+        symmetrizeCovariance();
+        invalidatePoses();
+    }
+
+    /**
+     * @return the squared Mahalanobis distance of a vision pose from the estimate at its timestamp, or NaN if it's older
+     * than the odometry history
+     */
+    double getSquaredMahalanobisDistance(double timestamp, double x, double y, double theta,
+                                         double xStd, double yStd, double thetaStd) {
+        if (!computeInnovation(timestamp, x, y, theta, xStd, yStd, thetaStd)) return Double.NaN;
+
+        double squaredDistance = 0;
+
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 3; column++)
+                squaredDistance += innovation[row] * innovationCovarianceInverse[row * 3 + column] * innovation[column];
+        }
+
+        return squaredDistance;
+    }
+
+    /**
+     * Computes the innovation of a vision pose against the estimate at its timestamp, and the inverse of its covariance.
+     *
+     * @return false if the vision is older than the odometry history, or the innovation's covariance is singular
+     */
+    private boolean computeInnovation(double timestamp, double x, double y, double theta,
+                                      double xStd, double yStd, double thetaStd) {
+        if (!computeEstimateAtTime(timestamp)) return false;
+
+        innovation[0] = x - estimateAtTime[0];
+        innovation[1] = y - estimateAtTime[1];
+        innovation[2] = MathUtil.angleModulus(theta - estimateAtTime[2]);
+
+        return invertInnovationCovariance(xStd * xStd, yStd * yStd, thetaStd * thetaStd);
+    }
+
+    /**
+     * Computes the estimate at the timestamp into {@link #estimateAtTime}, by moving the current estimate back by the
+     * odometry since then, and the odometry at the timestamp into {@link #odometrySample}.
+     *
+     * @return false if the timestamp is older than the odometry history
+     */
+    private boolean computeEstimateAtTime(double timestamp) {
+        if (odometryPoseHistory.isEmpty()
+                || odometryPoseHistory.getLatestTimestamp() - POSE_BUFFER_SIZE_SECONDS > timestamp
+                || !odometryPoseHistory.getSample(timestamp, odometrySample))
+            return false;
+
+        final double sampleX = odometrySample[0], sampleY = odometrySample[1], sampleTheta = odometrySample[2];
+
+        final double backX = rotateX(sampleX - odometryX, sampleY - odometryY, -odometryTheta);
+        final double backY = rotateY(sampleX - odometryX, sampleY - odometryY, -odometryTheta);
+
+        estimateAtTime[0] = state[X] + rotateX(backX, backY, state[THETA]);
+        estimateAtTime[1] = state[Y] + rotateY(backX, backY, state[THETA]);
+        estimateAtTime[2] = state[THETA] + sampleTheta - odometryTheta;
+
+        return true;
+    }
+
+    /**
+     * P = F * P * F^T + Q. Only theta affects other states, so F is the identity plus the position's derivative by theta.
+     */
+    private void predict(double dx, double dy, double dtheta, double deltaSeconds) {
+        final double previousX = state[X], previousY = state[Y];
+
+        state[THETA] = applyTwist(state[X], state[Y], state[THETA], dx, dy, dtheta, odometrySample);
+        state[X] = odometrySample[0];
+        state[Y] = odometrySample[1];
+
+        final double xByTheta = -(state[Y] - previousY), yByTheta = state[X] - previousX;
+
+        for (int column = 0; column < STATE_SIZE; column++) {
+            covariance[X * STATE_SIZE + column] += xByTheta * covariance[THETA * STATE_SIZE + column];
+            covariance[Y * STATE_SIZE + column] += yByTheta * covariance[THETA * STATE_SIZE + column];
+        }
+
+        for (int row = 0; row < STATE_SIZE; row++) {
+            covariance[row * STATE_SIZE + X] += xByTheta * covariance[row * STATE_SIZE + THETA];
+            covariance[row * STATE_SIZE + Y] += yByTheta * covariance[row * STATE_SIZE + THETA];
+        }
+
+        final double translationStd = EKF_MINIMUM_ODOMETRY_STD + EKF_ODOMETRY_TRANSLATION_STD_PER_METER * Math.hypot(dx, dy);
+        final double rotationStd = EKF_MINIMUM_ODOMETRY_STD + EKF_ODOMETRY_ROTATION_STD_PER_RADIAN * Math.abs(dtheta);
+
+        covariance[X * STATE_SIZE + X] += translationStd * translationStd;
+        covariance[Y * STATE_SIZE + Y] += translationStd * translationStd;
+        covariance[THETA * STATE_SIZE + THETA] += rotationStd * rotationStd;
+        covariance[GYRO_OFFSET * STATE_SIZE + GYRO_OFFSET] +=
+                EKF_GYRO_OFFSET_DRIFT_STD_PER_SQRT_SECOND * EKF_GYRO_OFFSET_DRIFT_STD_PER_SQRT_SECOND * deltaSeconds;
+    }
+
+    /**
+     * A scalar update, where the gyro measures theta plus the gyro offset.
+     */
+    private void correctWithGyro(double gyroYawRadians) {
+        if (!isGyroOffsetInitialized) {
+            state[GYRO_OFFSET] = MathUtil.angleModulus(gyroYawRadians - state[THETA]);
+            isGyroOffsetInitialized = true;
+            return;
+        }
+
+        final double innovation = MathUtil.angleModulus(gyroYawRadians - state[THETA] - state[GYRO_OFFSET]);
+
+        // P * H^T, where H = [0, 0, 1, 1]
+        final double covarianceX = covariance[X * STATE_SIZE + THETA] + covariance[X * STATE_SIZE + GYRO_OFFSET];
+        final double covarianceY = covariance[Y * STATE_SIZE + THETA] + covariance[Y * STATE_SIZE + GYRO_OFFSET];
+        final double covarianceTheta = covariance[THETA * STATE_SIZE + THETA] + covariance[THETA * STATE_SIZE + GYRO_OFFSET];
+        final double covarianceOffset = covariance[GYRO_OFFSET * STATE_SIZE + THETA] + covariance[GYRO_OFFSET * STATE_SIZE + GYRO_OFFSET];
+
+        final double innovationVariance = covarianceTheta + covarianceOffset + EKF_GYRO_YAW_STD_RADIANS * EKF_GYRO_YAW_STD_RADIANS;
+
+        if (innovationVariance <= 0) return;
+
+        final double gainX = covarianceX / innovationVariance, gainY = covarianceY / innovationVariance;
+        final double gainTheta = covarianceTheta / innovationVariance, gainOffset = covarianceOffset / innovationVariance;
+
+        state[X] += gainX * innovation;
+        state[Y] += gainY * innovation;
+        state[THETA] = MathUtil.angleModulus(state[THETA] + gainTheta * innovation);
+        state[GYRO_OFFSET] = MathUtil.angleModulus(state[GYRO_OFFSET] + gainOffset * innovation);
+
+        // P = P - K * (H * P), and H * P is the transpose of P * H^T
+        for (int column = 0; column < STATE_SIZE; column++) {
+            final double measurementCovariance = column == X ? covarianceX
+                    : column == Y ? covarianceY
+                    : column == THETA ? covarianceTheta
+                    : covarianceOffset;
+
+            covariance[X * STATE_SIZE + column] -= gainX * measurementCovariance;
+            covariance[Y * STATE_SIZE + column] -= gainY * measurementCovariance;
+            covariance[THETA * STATE_SIZE + column] -= gainTheta * measurementCovariance;
+            covariance[GYRO_OFFSET * STATE_SIZE + column] -= gainOffset * measurementCovariance;
+        }
+
+        symmetrizeCovariance();
+    }
+
+    /**
+     * Inverts S = H * P * H^T + R, the pose block of the covariance plus the vision's variance, by its adjugate.
+     *
+     * @return false if S is singular
+     */
+    private boolean invertInnovationCovariance(double xVariance, double yVariance, double thetaVariance) {
+        final double
+                a = covariance[0] + xVariance, b = covariance[1], c = covariance[2],
+                d = covariance[STATE_SIZE], e = covariance[STATE_SIZE + 1] + yVariance, f = covariance[STATE_SIZE + 2],
+                g = covariance[2 * STATE_SIZE], h = covariance[2 * STATE_SIZE + 1], i = covariance[2 * STATE_SIZE + 2] + thetaVariance;
+
+        final double cofactorA = e * i - f * h, cofactorB = -(d * i - f * g), cofactorC = d * h - e * g;
+        final double determinant = a * cofactorA + b * cofactorB + c * cofactorC;
+
+        if (Math.abs(determinant) < 1e-15) return false;
+
+        final double inverseDeterminant = 1 / determinant;
+
+        innovationCovarianceInverse[0] = cofactorA * inverseDeterminant;
+        innovationCovarianceInverse[1] = -(b * i - c * h) * inverseDeterminant;
+        innovationCovarianceInverse[2] = (b * f - c * e) * inverseDeterminant;
+        innovationCovarianceInverse[3] = cofactorB * inverseDeterminant;
+        innovationCovarianceInverse[4] = (a * i - c * g) * inverseDeterminant;
+        innovationCovarianceInverse[5] = -(a * f - c * d) * inverseDeterminant;
+        innovationCovarianceInverse[6] = cofactorC * inverseDeterminant;
+        innovationCovarianceInverse[7] = -(a * h - b * g) * inverseDeterminant;
+        innovationCovarianceInverse[8] = (a * e - b * d) * inverseDeterminant;
+
+        return true;
+    }
+
+    private void resetCovariance(double std) {
+        Arrays.fill(covariance, 0);
+
+        for (int i = 0; i < STATE_SIZE; i++)
+            covariance[i * STATE_SIZE + i] = std * std;
+    }
+
+    private void symmetrizeCovariance() {
+        for (int row = 0; row < STATE_SIZE; row++) {
+            for (int column = row + 1; column < STATE_SIZE; column++) {
+                final double average = (covariance[row * STATE_SIZE + column] + covariance[column * STATE_SIZE + row]) / 2;
+
+                covariance[row * STATE_SIZE + column] = average;
+                covariance[column * STATE_SIZE + row] = average;
+            }
+        }
+    }
+
+    /**
+     * The pseudo-inverse of the inverse kinematics, the same way {@link edu.wpi.first.math.kinematics.SwerveDriveKinematics}
+     * builds it. Only allocates at construction.
+     */
+    private static double[] createForwardKinematics(Translation2d[] moduleLocations) {
+        final SimpleMatrix inverseKinematics = new SimpleMatrix(moduleLocations.length * 2, 3);
+
+        for (int module = 0; module < moduleLocations.length; module++) {
+            inverseKinematics.setRow(module * 2, 0, 1, 0, -moduleLocations[module].getY());
+            inverseKinematics.setRow(module * 2 + 1, 0, 0, 1, moduleLocations[module].getX());
+        }
+
+        final SimpleMatrix forwardKinematics = inverseKinematics.pseudoInverse();
+        final double[] flattened = new double[forwardKinematics.getNumElements()];
+
+        for (int row = 0; row < forwardKinematics.getNumRows(); row++) {
+            for (int column = 0; column < forwardKinematics.getNumCols(); column++)
+                flattened[row * forwardKinematics.getNumCols() + column] = forwardKinematics.get(row, column);
+        }
+
+        return flattened;
+    }
+
+    private void invalidatePoses() {
+        estimatedPose = null;
+        odometryPose = null;
+    }
+
+    /**
+     * Moves a pose along a robot relative twist, like {@link Pose2d#exp(Twist2d)}.
+     *
+     * @param positionOutput filled with the new x and y
+     * @return the new theta
+     */
+    private static double applyTwist(double x, double y, double theta, double dx, double dy, double dtheta,
+                                     double[] positionOutput) {
+        final double s, c;
+
+        if (Math.abs(dtheta) < 1e-9) {
+            s = 1.0 - 1.0 / 6.0 * dtheta * dtheta;
+            c = 0.5 * dtheta;
+        } else {
+            s = Math.sin(dtheta) / dtheta;
+            c = (1 - Math.cos(dtheta)) / dtheta;
+        }
+
+        final double localX = dx * s - dy * c, localY = dx * c + dy * s;
+
+        positionOutput[0] = x + rotateX(localX, localY, theta);
+        positionOutput[1] = y + rotateY(localX, localY, theta);
+
+        return MathUtil.angleModulus(theta + dtheta);
+    }
+
+    private static double rotateX(double x, double y, double theta) {
+        return x * Math.cos(theta) - y * Math.sin(theta);
+    }
+
+    private static double rotateY(double x, double y, double theta) {
+        return x * Math.sin(theta) + y * Math.cos(theta);
+    }
+}
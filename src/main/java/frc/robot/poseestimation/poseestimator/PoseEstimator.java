@@ -12,11 +12,11 @@ import edu.wpi.first.math.numbers.N3;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.smartdashboard.Field2d;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.lib.generic.advantagekit.PackedArrayOutput;
 import frc.lib.math.Optimizations;
 import frc.robot.GlobalConstants;
 import frc.robot.RobotContainer;
 import frc.robot.poseestimation.photoncamera.PhotonCameraIO;
-import org.littletonrobotics.junction.Logger;
 
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -26,16 +26,23 @@ import java.util.Map;
 import static frc.robot.GlobalConstants.CURRENT_MODE;
 import static frc.robot.poseestimation.photoncamera.CameraFactory.VISION_SIMULATION;
 import static frc.robot.poseestimation.poseestimator.PoseEstimatorConstants.*;
+import static frc.robot.subsystems.swerve.SwerveConstants.MODULE_LOCATIONS;
 
 /**
- * A class that estimates the robot's pose using team 6328's custom pose estimator.
+ * A class that estimates the robot's pose by feeding odometry and vision to a {@link RobotPoseEstimator}.
  */
 public class PoseEstimator implements AutoCloseable {
+    private record CameraVisionObservation(int cameraIndex, RobotPoseEstimator.VisionObservation observation) { }
+
     private final Field2d field = new Field2d();
 
     private final PhotonCameraIO[] robotPoseSources;
+    private final VisionAcceptanceStatistics[] visionStatistics;
 
-    private final PoseEstimator6328 poseEstimator6328 = PoseEstimator6328.getInstance();
+    private final RobotPoseEstimator robotPoseEstimator =
+            SHOULD_USE_EXTENDED_KALMAN_FILTER ? new ExtendedKalmanPoseEstimator(MODULE_LOCATIONS) : PoseEstimator6328.getInstance();
+    private final VisionGate visionGate;
+    private final PackedArrayOutput pathOutput = new PackedArrayOutput("Path", PackedArrayOutput.POSE_2D_LENGTH, MAXIMUM_LOGGED_PATH_POSES);
 
     /**
      * Constructs a new PoseEstimator.
@@ -45,13 +52,20 @@ public class PoseEstimator implements AutoCloseable {
     public PoseEstimator(PhotonCameraIO... robotPoseSources) {
         this.robotPoseSources = robotPoseSources;
 
+        visionStatistics = new VisionAcceptanceStatistics[robotPoseSources.length];
+
+        for (int i = 0; i < robotPoseSources.length; i++)
+            visionStatistics[i] = new VisionAcceptanceStatistics(robotPoseSources[i].getName(), VISION_ACCEPTANCE_WINDOW_SIZE);
+
+        visionGate = new VisionGate(robotPoseEstimator, visionStatistics);
+
         putAprilTagsOnFieldWidget();
 
         SmartDashboard.putData("Field", field);
 
         PathPlannerLogging.setLogActivePathCallback(pose -> {
             field.getObject("path").setPoses(pose);
-            Logger.recordOutput("Path", pose.toArray(new Pose2d[0]));
+            pathOutput.recordPoses(pose);
         });
     }
 
@@ -62,6 +76,11 @@ public class PoseEstimator implements AutoCloseable {
 
     public void periodic() {
         updateFromVision();
+        robotPoseEstimator.logPoses();
+
+        for (VisionAcceptanceStatistics statistics : visionStatistics)
+            statistics.log();
+
         field.setRobotPose(getCurrentPose());
     }
 
@@ -72,18 +91,19 @@ public class PoseEstimator implements AutoCloseable {
      */
     public void resetPose(Pose2d currentPose) {
         RobotContainer.SWERVE.setGyroHeading(currentPose.getRotation());
-        poseEstimator6328.resetPose(currentPose);
+        robotPoseEstimator.resetPose(currentPose);
+        visionGate.reset();
     }
 
     /**
      * @return the estimated pose of the robot, relative to the blue alliance's driver station right corner
      */
     public Pose2d getCurrentPose() {
-        return poseEstimator6328.getEstimatedPose();
+        return robotPoseEstimator.getEstimatedPose();
     }
 
     public Pose2d getOdometryPose() {
-        return poseEstimator6328.getOdometryPose();
+        return robotPoseEstimator.getOdometryPose();
     }
 
     /**
@@ -106,7 +126,7 @@ public class PoseEstimator implements AutoCloseable {
         }
 
         for (int i = 0; i < swerveWheelPositions.length; i++)
-            poseEstimator6328.addOdometryObservation(new PoseEstimator6328.OdometryObservation(
+            robotPoseEstimator.addOdometryObservation(new RobotPoseEstimator.OdometryObservation(
                     swerveWheelPositions[i],
                     gyroRotations[i],
                     timestamps[i])
@@ -115,24 +135,42 @@ public class PoseEstimator implements AutoCloseable {
 
     private void updateFromVision() {
         getViableVisionObservations().stream()
-                .sorted(Comparator.comparingDouble(PoseEstimator6328.VisionObservation::timestamp))
-                .forEach(poseEstimator6328::addVisionObservation);
+                .sorted(Comparator.comparingDouble(cameraObservation -> cameraObservation.observation().timestamp()))
+                .forEach(cameraObservation ->
+                        visionGate.addVisionObservation(cameraObservation.cameraIndex(), cameraObservation.observation()));
     }
 
-    private List<PoseEstimator6328.VisionObservation> getViableVisionObservations() {
-        List<PoseEstimator6328.VisionObservation> viableVisionObservations = new ArrayList<>();
+    private List<CameraVisionObservation> getViableVisionObservations() {
+        List<CameraVisionObservation> viableVisionObservations = new ArrayList<>();
+
+        for (int cameraIndex = 0; cameraIndex < robotPoseSources.length; cameraIndex++) {
+            final PhotonCameraIO robotPoseSource = robotPoseSources[cameraIndex];
+
+            robotPoseSource.refresh();
 
-        for (PhotonCameraIO robotPoseSource : robotPoseSources) {
-            final PoseEstimator6328.VisionObservation visionObservation = getVisionObservation(robotPoseSource);
+            RobotPoseEstimator.VisionObservation latestVisionObservation = null;
 
-            if (visionObservation != null)
-                viableVisionObservations.add(visionObservation);
+            for (int i = 0; i < robotPoseSource.getResultCount(); i++) {
+                final VisionAcceptanceStatistics.Rejection rejection = getPoseRejection(robotPoseSource.getRobotPose3d(i));
+
+                if (rejection != null) {
+                    visionStatistics[cameraIndex].recordRejected(rejection);
+                    continue;
+                }
+
+                final RobotPoseEstimator.VisionObservation visionObservation = getVisionObservation(robotPoseSource, i);
+
+                if (visionObservation == null) continue;
+
+                viableVisionObservations.add(new CameraVisionObservation(cameraIndex, visionObservation));
+                latestVisionObservation = visionObservation;
+            }
 
             if (CURRENT_MODE == GlobalConstants.Mode.SIMULATION) {
-                if (visionObservation != null && visionObservation.visionPose() != null)
+                if (latestVisionObservation != null)
                     VISION_SIMULATION.getDebugField()
                         .getObject("VisionEstimation")
-                        .setPose(visionObservation.visionPose());
+                        .setPose(latestVisionObservation.visionPose());
                 else {
                     VISION_SIMULATION.getDebugField().getObject("VisionEstimation").setPoses();
                 }
@@ -142,21 +180,32 @@ public class PoseEstimator implements AutoCloseable {
         return viableVisionObservations;
     }
 
-    private PoseEstimator6328.VisionObservation getVisionObservation(PhotonCameraIO robotPoseSource) {
-        robotPoseSource.refresh();
+    /**
+     * The robot drives on the floor inside the field, so a pose off the floor or outside the field is a bad solve.
+     *
+     * @return why the pose is rejected, or null if it's plausible
+     */
+    private VisionAcceptanceStatistics.Rejection getPoseRejection(Pose3d robotPose) {
+        if (Math.abs(robotPose.getZ()) > MAXIMUM_VISION_HEIGHT_METERS)
+            return VisionAcceptanceStatistics.Rejection.OFF_FLOOR;
 
-        if (!robotPoseSource.hasNewResult())
-            return null;
+        if (robotPose.getX() < -VISION_FIELD_MARGIN_METERS
+                || robotPose.getX() > APRIL_TAG_FIELD_LAYOUT.getFieldLength() + VISION_FIELD_MARGIN_METERS
+                || robotPose.getY() < -VISION_FIELD_MARGIN_METERS
+                || robotPose.getY() > APRIL_TAG_FIELD_LAYOUT.getFieldWidth() + VISION_FIELD_MARGIN_METERS)
+            return VisionAcceptanceStatistics.Rejection.OUTSIDE_FIELD;
 
-        final Pose2d robotPose = robotPoseSource.getRobotPose();
+        return null;
+    }
 
-        if (robotPose == null)
+    private RobotPoseEstimator.VisionObservation getVisionObservation(PhotonCameraIO robotPoseSource, int resultIndex) {
+        if (robotPoseSource.getAverageDistanceFromTags(resultIndex) == 0)
             return null;
 
-        return new PoseEstimator6328.VisionObservation(
-                robotPose,
-                robotPoseSource.getLastResultTimestamp(),
-                averageDistanceToStdDevs(robotPoseSource.getAverageDistanceFromTags(), robotPoseSource.getVisibleTags())
+        return new RobotPoseEstimator.VisionObservation(
+                robotPoseSource.getRobotPose(resultIndex),
+                robotPoseSource.getResultTimestamp(resultIndex),
+                averageDistanceToStdDevs(robotPoseSource.getAverageDistanceFromTags(resultIndex), robotPoseSource.getVisibleTags(resultIndex))
         );
     }
 
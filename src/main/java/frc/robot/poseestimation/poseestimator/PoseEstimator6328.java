@@ -3,31 +3,39 @@ package frc.robot.poseestimation.poseestimator;
 import edu.wpi.first.math.Matrix;
 import edu.wpi.first.math.Nat;
 import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.Vector;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Transform2d;
 import edu.wpi.first.math.geometry.Twist2d;
-import edu.wpi.first.math.interpolation.TimeInterpolatableBuffer;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.kinematics.SwerveDriveWheelPositions;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.numbers.N1;
 import edu.wpi.first.math.numbers.N3;
-import org.littletonrobotics.junction.AutoLogOutput;
+import frc.lib.generic.advantagekit.PackedArrayOutput;
+import frc.lib.util.PoseHistoryBuffer;
 
-import java.util.NoSuchElementException;
+import java.util.Arrays;
 
+import static frc.robot.GlobalConstants.ODOMETRY_FREQUENCY_HERTZ;
+import static frc.robot.poseestimation.poseestimator.PoseEstimatorConstants.*;
 import static frc.robot.subsystems.swerve.SwerveConstants.SWERVE_KINEMATICS;
 
-public class PoseEstimator6328 {
-    public record OdometryObservation(SwerveDriveWheelPositions wheelPositions, Rotation2d gyroAngle, double timestamp) { }
-    public record VisionObservation(Pose2d visionPose, double timestamp, Matrix<N3, N1> stdDevs) { }
-
+/**
+ * Team 6328's estimator, which corrects the odometry with vision through a fixed, diagonal Kalman gain.
+ * <p>
+ * The gain doesn't need a covariance, but gating vision does, so the estimator also tracks how far off its estimate may
+ * be: the uncertainty the last correction left, plus how far the odometry may have drifted since, which grows with
+ * travel.
+ */
+public class PoseEstimator6328 implements RobotPoseEstimator {
     private static final double POSE_BUFFER_SIZE_SECONDS = 2.0;
 
     private static PoseEstimator6328 instance;
 
     public static PoseEstimator6328 getInstance() {
-        if (instance == null) instance = new PoseEstimator6328();
+        if (instance == null) instance = new PoseEstimator6328(SWERVE_KINEMATICS, ODOMETRY_AMBIGUITY);
         return instance;
     }
 
@@ -35,8 +43,19 @@ public class PoseEstimator6328 {
     private Pose2d odometryPose = new Pose2d();
     private Pose2d estimatedPose = new Pose2d();
 
-    private final TimeInterpolatableBuffer<Pose2d> poseBuffer = TimeInterpolatableBuffer.createBuffer(POSE_BUFFER_SIZE_SECONDS);
+    /** Leaves room for odometry ticks that arrive faster than the nominal frequency. */
+    private final PoseHistoryBuffer poseBuffer =
+            new PoseHistoryBuffer(POSE_BUFFER_SIZE_SECONDS, (int) Math.ceil(POSE_BUFFER_SIZE_SECONDS * ODOMETRY_FREQUENCY_HERTZ * 1.5));
     private final Matrix<N3, N1> qStdDevs = new Matrix<>(Nat.N3(), Nat.N1());
+    private final SwerveDriveKinematics kinematics;
+
+    /* Per x, y and theta. The uncertainty left after the last vision correction, and the drift since */
+    private final double[] correctedStds = new double[3];
+    private final double[] driftStds = new double[3];
+
+    private final PackedArrayOutput
+            estimatedPoseOutput = new PackedArrayOutput("Poses/Robot/EstimatedPose", PackedArrayOutput.POSE_2D_LENGTH, 1),
+            odometryPoseOutput = new PackedArrayOutput("Poses/Robot/OdometryPose", PackedArrayOutput.POSE_2D_LENGTH, 1);
 
     // Odometry
     private SwerveDriveWheelPositions lastWheelPositions =
@@ -50,61 +69,66 @@ public class PoseEstimator6328 {
 
     private Rotation2d lastGyroAngle = new Rotation2d();
 
-    private PoseEstimator6328() {
+    /**
+     * @param odometryAmbiguity see {@link PoseEstimatorConstants#ODOMETRY_AMBIGUITY}
+     */
+    PoseEstimator6328(SwerveDriveKinematics kinematics, Vector<N3> odometryAmbiguity) {
+        this.kinematics = kinematics;
+
         for (int i = 0; i < 3; ++i) {
-            qStdDevs.set(i, 0, Math.pow(PoseEstimatorConstants.ODOMETRY_AMBIGUITY.get(i, 0), 2));
+            qStdDevs.set(i, 0, Math.pow(odometryAmbiguity.get(i, 0), 2));
         }
+
+        Arrays.fill(correctedStds, GATING_INITIAL_STD);
     }
 
     /**
      * Add odometry observation
      */
+    @Override
     public void addOdometryObservation(OdometryObservation observation) {
-        Twist2d twist = SWERVE_KINEMATICS.toTwist2d(lastWheelPositions, observation.wheelPositions());
+        Twist2d twist = kinematics.toTwist2d(lastWheelPositions, observation.wheelPositions());
         lastWheelPositions = observation.wheelPositions();
         // Check gyro connected
-        if (observation.gyroAngle != null) {
+        if (observation.gyroAngle() != null) {
             // Update dtheta for twist if gyro connected
             twist =
                     new Twist2d(
-                            twist.dx, twist.dy, observation.gyroAngle.minus(lastGyroAngle).getRadians());
-            lastGyroAngle = observation.gyroAngle;
+                            twist.dx, twist.dy, observation.gyroAngle().minus(lastGyroAngle).getRadians());
+            lastGyroAngle = observation.gyroAngle();
         }
 
         // Add twist to odometry pose
         odometryPose = odometryPose.exp(twist);
         // Add pose to buffer at timestamp
-        poseBuffer.addSample(observation.timestamp, odometryPose);
+        poseBuffer.addSample(observation.timestamp(), odometryPose);
         // Calculate diff from last odometry pose and add onto pose estimate
         estimatedPose = estimatedPose.exp(twist);
+
+        final double distance = Math.hypot(twist.dx, twist.dy);
+
+        driftStds[0] += ODOMETRY_DRIFT_STD_PER_METER * distance;
+        driftStds[1] += ODOMETRY_DRIFT_STD_PER_METER * distance;
+        driftStds[2] += ODOMETRY_DRIFT_STD_PER_RADIAN * Math.abs(twist.dtheta);
     }
 
+    @Override
     public void addVisionObservation(VisionObservation observation) {
-        // If measurement is old enough to be outside the pose buffer's timespan, skip.
-        try {
-            if (poseBuffer.getInternalBuffer().lastKey() - POSE_BUFFER_SIZE_SECONDS
-                    > observation.timestamp) {
-                return;
-            }
-        } catch (NoSuchElementException ex) {
-            return;
-        }
         // Get odometry based pose at timestamp
-        final var sample = poseBuffer.getSample(observation.timestamp);
+        final Pose2d sample = getOdometrySample(observation.timestamp());
 
-        if (sample.isEmpty()) return;
+        if (sample == null) return;
 
-        // sample --> odometryPose transform and backwards of that
-        final var sampleToOdometryTransform = new Transform2d(sample.get(), odometryPose);
-        final var odometryToSampleTransform = new Transform2d(odometryPose, sample.get());
-        // get old estimate by applying odometryToSample Transform
-        final Pose2d estimateAtTime = estimatedPose.plus(odometryToSampleTransform);
+        // sample --> odometryPose transform
+        final var sampleToOdometryTransform = new Transform2d(sample, odometryPose);
+        // get old estimate by applying the odometryToSample transform
+        final Pose2d estimateAtTime = getEstimateAtOdometrySample(sample);
 
         // Calculate 3 x 3 vision matrix
         final var r = new double[3];
 
         for (int i = 0; i < 3; ++i) {
-            r[i] = observation.stdDevs.get(i, 0) * observation.stdDevs.get(i, 0);
+            r[i] = observation.stdDevs().get(i, 0) * observation.stdDevs().get(i, 0);
         }
         // Solve for closed form Kalman gain for continuous Kalman filter with A = 0
         // and C = I. See wpimath/algorithms.md.
@@ -119,7 +143,7 @@ public class PoseEstimator6328 {
             }
         }
         // difference between estimate and vision pose
-        final Transform2d transform = new Transform2d(estimateAtTime, observation.visionPose);
+        final Transform2d transform = new Transform2d(estimateAtTime, observation.visionPose());
         // scale transform by visionK
         final var kTimesTransform =
                 visionK.times(
@@ -135,26 +159,112 @@ public class PoseEstimator6328 {
         // Recalculate current estimate by applying scaled transform to old estimate
         // then replaying odometry data
         estimatedPose = estimateAtTime.plus(scaledTransform).plus(sampleToOdometryTransform);
+
+        // The error left after applying the gain, so the drift starts over from it
+        for (int i = 0; i < 3; ++i) {
+            final double gain = visionK.get(i, i);
+
+            correctedStds[i] = Math.sqrt((1 - gain) * (1 - gain) * getVariance(i) + gain * gain * r[i]);
+            driftStds[i] = 0;
+        }
+    }
+
+    /**
+     * Uses the tracked uncertainty of the estimate and the observation's std devs as the diagonal covariance.
+     */
+    @Override
+    public double getSquaredMahalanobisDistance(VisionObservation observation) {
+        final Pose2d estimateAtTime = getEstimatedPoseAt(observation.timestamp());
+
+        if (estimateAtTime == null) return Double.NaN;
+
+        final Pose2d visionPose = observation.visionPose();
+
+        final double[] innovation = {
+                visionPose.getX() - estimateAtTime.getX(),
+                visionPose.getY() - estimateAtTime.getY(),
+                visionPose.getRotation().minus(estimateAtTime.getRotation()).getRadians()
+        };
+
+        double squaredDistance = 0;
+
+        for (int i = 0; i < 3; ++i) {
+            final double stdDev = observation.stdDevs().get(i, 0);
+            final double variance = getVariance(i) + stdDev * stdDev;
+
+            squaredDistance += innovation[i] * innovation[i] / variance;
+        }
+
+        return squaredDistance;
+    }
+
+    @Override
+    public Pose2d getEstimatedPoseAt(double timestamp) {
+        final Pose2d sample = getOdometrySample(timestamp);
+
+        return sample == null ? null : getEstimateAtOdometrySample(sample);
+    }
+
+    @Override
+    public double getTranslationStdDev() {
+        return Math.sqrt(Math.max(getVariance(0), getVariance(1)));
     }
 
     /**
      * Reset estimated pose and odometry pose to pose <br>
      * Clear pose buffer
      */
+    @Override
     public void resetPose(Pose2d initialPose) {
         estimatedPose = initialPose;
         lastGyroAngle = initialPose.getRotation();
         odometryPose = initialPose;
         poseBuffer.clear();
+
+        Arrays.fill(correctedStds, GATING_RESET_STD);
+        Arrays.fill(driftStds, 0);
+    }
+
+    @Override
+    public void logPoses() {
+        estimatedPoseOutput.recordPose(estimatedPose);
+        odometryPoseOutput.recordPose(odometryPose);
     }
 
-    @AutoLogOutput(key = "Poses/Robot/EstimatedPose")
+    @Override
     public Pose2d getEstimatedPose() {
         return estimatedPose;
     }
 
-    @AutoLogOutput(key = "Poses/Robot/OdometryPose")
+    @Override
     public Pose2d getOdometryPose() {
         return odometryPose;
     }
+
+    /**
+     * @return the variance of the estimate's x, y or theta, used to gate vision
+     */
+    private double getVariance(int index) {
+        final double std = correctedStds[index] + driftStds[index];
+
+        return std * std;
+    }
+
+    /**
+     * @param odometrySample the odometry pose at some timestamp
+     * @return the estimate at the same timestamp
+     */
+    private Pose2d getEstimateAtOdometrySample(Pose2d odometrySample) {
+        return estimatedPose.plus(new Transform2d(odometryPose, odometrySample));
+    }
+
+    /**
+     * @return the odometry pose at the timestamp, or null if it's outside the pose buffer's timespan
+     */
+    private Pose2d getOdometrySample(double timestamp) {
+        if (poseBuffer.isEmpty() || poseBuffer.getLatestTimestamp() - POSE_BUFFER_SIZE_SECONDS > timestamp)
+            return null;
+
+        return poseBuffer.getSample(timestamp).orElse(null);
+    }
 }
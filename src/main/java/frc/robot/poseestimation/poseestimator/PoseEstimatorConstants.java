@@ -5,6 +5,7 @@ import edu.wpi.first.apriltag.AprilTagFieldLayout;
 import edu.wpi.first.apriltag.AprilTagFields;
 import edu.wpi.first.math.VecBuilder;
 import edu.wpi.first.math.Vector;
+import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Pose3d;
 import edu.wpi.first.math.geometry.Rotation3d;
 import edu.wpi.first.math.geometry.Transform3d;
@@ -37,8 +38,62 @@ public class PoseEstimatorConstants {
     static final double TRANSLATION_STD_EXPONENT = 0.005;
     static final double ROTATION_STD_EXPONENT = 0.01;
 
+    /** Whether to estimate the pose with the {@link ExtendedKalmanPoseEstimator} instead of the {@link PoseEstimator6328}. */
+    static final boolean SHOULD_USE_EXTENDED_KALMAN_FILTER = false;
+
+    /*
+     * The extended Kalman filter's noise, as standard deviations. The odometry's noise grows with how far the wheels moved
+     * in a tick, and the offset between the gyro and the field heading drifts slowly.
+     */
+    static final double
+            EKF_INITIAL_STD = 1.0,
+            EKF_RESET_STD = 0.01,
+            EKF_MINIMUM_ODOMETRY_STD = 1.0e-4,
+            EKF_ODOMETRY_TRANSLATION_STD_PER_METER = 0.03,
+            EKF_ODOMETRY_ROTATION_STD_PER_RADIAN = 0.1,
+            EKF_GYRO_YAW_STD_RADIANS = 0.005,
+            EKF_GYRO_OFFSET_DRIFT_STD_PER_SQRT_SECOND = 0.002;
+
+    /** Paths up to this many poses are logged without allocating. PathPlanner paths are usually far shorter. */
+    static final int MAXIMUM_LOGGED_PATH_POSES = 512;
+
     public static final double MAXIMUM_AMBIGUITY = 0.2;
 
+    /*
+     * How far the PoseEstimator6328's estimate may be off, only used to gate vision. Wheel slip and wear bias the odometry,
+     * so its drift grows linearly with how far the robot travelled since the last correction, not like a random walk.
+     */
+    static final double
+            GATING_INITIAL_STD = 1.0,
+            GATING_RESET_STD = 0.01,
+            ODOMETRY_DRIFT_STD_PER_METER = 0.05,
+            ODOMETRY_DRIFT_STD_PER_RADIAN = 0.02;
+
+    /** The chi-square value for 3 degrees of freedom at 99%. Vision further than this from the estimate is rejected. */
+    static final double VISION_INNOVATION_GATE = 11.345;
+    /*
+     * Once a camera's observations were all gated for this long, the estimate may be lost, so an observation is accepted
+     * anyway if enough gated observations from other cameras, from around its time, are off from the estimate by about as
+     * much. A lone camera can only agree with itself, so it also needs the estimate to be uncertain enough that its
+     * observation is off by at most VISION_RECOVERY_MAXIMUM_STD_DEVS of the estimate's std devs.
+     */
+    static final double
+            VISION_RECOVERY_SECONDS = 0.5,
+            VISION_RECOVERY_AGREEMENT_METERS = 0.2,
+            VISION_RECOVERY_AGREEMENT_RADIANS = 0.1,
+            VISION_RECOVERY_MAXIMUM_STD_DEVS = 6;
+    static final int VISION_RECOVERY_AGREEING_OBSERVATIONS = 3;
+    /** Vision poses further outside the field than this, or further above or below the floor, are rejected. */
+    static final double
+            VISION_FIELD_MARGIN_METERS = 0.5,
+            MAXIMUM_VISION_HEIGHT_METERS = 0.3;
+    static final int VISION_ACCEPTANCE_WINDOW_SIZE = 100;
+
+    /** How often each camera's worker checks for a new frame. Faster than the cameras, so frames are processed as they arrive. */
+    public static final double CAMERA_POLL_PERIOD_SECONDS = 0.005;
+    /** Processed frames waiting for the main loop beyond this are dropped, oldest first, so a stalled loop can't pile them up. */
+    public static final int MAXIMUM_PENDING_CAMERA_OBSERVATIONS = 16;
+
     public static final TargetModel TAG_MODEL = TargetModel.kAprilTag36h11;
 
     public static final PhotonPoseEstimator.PoseStrategy
@@ -47,10 +102,14 @@ public class PoseEstimatorConstants {
 
     public static final AprilTagFieldLayout APRIL_TAG_FIELD_LAYOUT = AprilTagFields.k2024Crescendo.loadAprilTagLayoutField();
     public static final Map<Integer, Pose3d> TAG_ID_TO_POSE = new HashMap<>();
+    /** {@link #TAG_ID_TO_POSE} projected to the floor, so it isn't projected every loop. */
+    public static final Map<Integer, Pose2d> TAG_ID_TO_POSE_2D = new HashMap<>();
 
     static {
-        for (AprilTag aprilTag : APRIL_TAG_FIELD_LAYOUT.getTags())
+        for (AprilTag aprilTag : APRIL_TAG_FIELD_LAYOUT.getTags()) {
             TAG_ID_TO_POSE.put(aprilTag.ID, aprilTag.pose);
+            TAG_ID_TO_POSE_2D.put(aprilTag.ID, aprilTag.pose.toPose2d());
+        }
     }
 }
 
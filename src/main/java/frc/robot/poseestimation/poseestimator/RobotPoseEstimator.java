@@ -0,0 +1,58 @@
+package frc.robot.poseestimation.poseestimator;
+
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveDriveWheelPositions;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+
+/**
+ * Fuses odometry and vision into the robot's pose, relative to the blue alliance's driver station right corner.
+ * Observations must be added in increasing timestamp order, except vision, which may be up to a couple of seconds old.
+ */
+public interface RobotPoseEstimator {
+    /**
+     * @param gyroAngle the gyro's yaw at the observation, or null if the gyro is disconnected
+     */
+    record OdometryObservation(SwerveDriveWheelPositions wheelPositions, Rotation2d gyroAngle, double timestamp) { }
+
+    record VisionObservation(Pose2d visionPose, double timestamp, Matrix<N3, N1> stdDevs) { }
+
+    void addOdometryObservation(OdometryObservation observation);
+
+    void addVisionObservation(VisionObservation observation);
+
+    /**
+     * How far a vision observation is from the estimate at its timestamp, relative to both of their uncertainties.
+     * For a consistent estimator, this is chi-square distributed with 3 degrees of freedom.
+     *
+     * @return the squared Mahalanobis distance of the observation, or NaN if it's too old to be compared
+     */
+    double getSquaredMahalanobisDistance(VisionObservation observation);
+
+    /**
+     * @return the estimated pose at the timestamp, found by moving the current estimate back by the odometry since then,
+     * or null if it's too old to be found
+     */
+    Pose2d getEstimatedPoseAt(double timestamp);
+
+    /**
+     * @return how far the current estimate's translation may be off, as a standard deviation in meters
+     */
+    double getTranslationStdDev();
+
+    /**
+     * Resets the estimated and odometry poses, and forgets every past observation.
+     */
+    void resetPose(Pose2d initialPose);
+
+    Pose2d getEstimatedPose();
+
+    Pose2d getOdometryPose();
+
+    /**
+     * Logs the estimated and odometry poses. Call this once per loop, after every observation was added.
+     */
+    void logPoses();
+}
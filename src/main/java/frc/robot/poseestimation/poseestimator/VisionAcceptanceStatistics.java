@@ -0,0 +1,100 @@
+package frc.robot.poseestimation.poseestimator;
+
+import org.littletonrobotics.junction.Logger;
+
+/**
+ * How many of a camera's observations were fed to the pose estimator, and why the rest were rejected.
+ * Besides the totals since startup, the acceptance rate is kept over the latest observations, so a camera that
+ * starts producing bad solves shows up right away.
+ */
+class VisionAcceptanceStatistics {
+    enum Rejection {
+        /** The pose is outside the field, past a margin. */
+        OUTSIDE_FIELD,
+        /** The pose is too far above or below the floor, so the solve is wrong. */
+        OFF_FLOOR,
+        /** The pose is too far from the estimate, relative to both of their uncertainties. */
+        INNOVATION,
+        /** The frame is older than the estimator's history. */
+        STALE
+    }
+
+    private final boolean[] window;
+    private int nextIndex = 0, size = 0, acceptedInWindow = 0;
+
+    private long acceptedCount = 0, recoveredCount = 0;
+    private final long[] rejectionCounts = new long[Rejection.values().length];
+    private double lastSquaredMahalanobisDistance = 0;
+
+    private final String acceptedKey, recoveredKey, acceptanceRateKey, mahalanobisKey;
+    private final String[] rejectionKeys = new String[Rejection.values().length];
+
+    /**
+     * @param cameraName the camera's name, which the statistics are logged under
+     * @param windowSize how many of the latest observations the acceptance rate is computed over
+     */
+    VisionAcceptanceStatistics(String cameraName, int windowSize) {
+        window = new boolean[windowSize];
+
+        final String logKey = "Vision/" + cameraName + "/";
+
+        acceptedKey = logKey + "Accepted";
+        recoveredKey = logKey + "Recovered";
+        acceptanceRateKey = logKey + "AcceptanceRate";
+        mahalanobisKey = logKey + "LastSquaredMahalanobisDistance";
+
+        for (Rejection rejection : Rejection.values())
+            rejectionKeys[rejection.ordinal()] = logKey + "Rejected/" + rejection.name();
+    }
+
+    void recordAccepted() {
+        acceptedCount++;
+        addToWindow(true);
+    }
+
+    /**
+     * Records an observation that failed the gate, but was accepted because the estimate seemed lost.
+     */
+    void recordRecovered() {
+        recoveredCount++;
+        recordAccepted();
+    }
+
+    void recordRejected(Rejection rejection) {
+        rejectionCounts[rejection.ordinal()]++;
+        addToWindow(false);
+    }
+
+    /**
+     * @param squaredMahalanobisDistance the distance of the latest gated observation, whether it was accepted or not
+     */
+    void recordSquaredMahalanobisDistance(double squaredMahalanobisDistance) {
+        lastSquaredMahalanobisDistance = squaredMahalanobisDistance;
+    }
+
+    /**
+     * Call this once per loop.
+     */
+    void log() {
+        Logger.recordOutput(acceptedKey, acceptedCount);
+        Logger.recordOutput(recoveredKey, recoveredCount);
+        Logger.recordOutput(acceptanceRateKey, size == 0 ? 1 : (double) acceptedInWindow / size);
+        Logger.recordOutput(mahalanobisKey, lastSquaredMahalanobisDistance);
+
+        for (int i = 0; i < rejectionKeys.length; i++)
+            Logger.recordOutput(rejectionKeys[i], rejectionCounts[i]);
+    }
+
+    private void addToWindow(boolean isAccepted) {
+        if (size == window.length) {
+            if (window[nextIndex]) acceptedInWindow--;
+        } else {
+            size++;
+        }
+
+        window[nextIndex] = isAccepted;
+        if (isAccepted) acceptedInWindow++;
+
+        nextIndex = (nextIndex + 1) % window.length;
+    }
+}
@@ -0,0 +1,155 @@
+package frc.robot.poseestimation.poseestimator;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+
+import java.util.Arrays;
+
+import static frc.robot.poseestimation.poseestimator.PoseEstimatorConstants.*;
+
+/**
+ * Decides which vision observations are fed to a {@link RobotPoseEstimator}.
+ * <p>
+ * An observation is accepted if it's plausible given both its and the estimate's uncertainty, by its squared Mahalanobis
+ * distance from the estimate at its timestamp. If the estimate gets lost, e.g. after a collision or a wrong reset, every
+ * good observation fails that test, so there's a fallback: once a camera's observations were all gated for
+ * {@link PoseEstimatorConstants#VISION_RECOVERY_SECONDS}, an observation is accepted anyway if enough recently gated
+ * observations from other cameras are off from the estimate the same way. A lone outlier has nothing to agree with, and a
+ * camera that keeps making the same mistake, like a bumped one, only agrees with itself.
+ * <p>
+ * With a single camera there's nothing else to agree with, so its own observations count, but only once the estimate is
+ * uncertain enough to be that far off, see {@link PoseEstimatorConstants#VISION_RECOVERY_MAXIMUM_STD_DEVS}. A parked
+ * robot's estimate stays certain, so a bumped camera can't pull it away.
+ */
+class VisionGate {
+    private static final int GATED_HISTORY_CAPACITY = 32;
+
+    private final RobotPoseEstimator robotPoseEstimator;
+    private final VisionAcceptanceStatistics[] statistics;
+
+    /** When each camera's observations started being gated, or NaN if its latest one was accepted. */
+    private final double[] firstGatedTimestamps;
+
+    /*
+     * The innovations of the observations gated since one was last accepted, and their cameras. Every accepted
+     * observation moves the estimate, which makes them stale, so they're forgotten then.
+     */
+    private final double[] gatedTimestamps = new double[GATED_HISTORY_CAPACITY];
+    private final int[] gatedCameraIndices = new int[GATED_HISTORY_CAPACITY];
+    private final double[] gatedInnovations = new double[GATED_HISTORY_CAPACITY * 3];
+    private int gatedCount = 0, nextGatedIndex = 0;
+
+    private final double[] innovation = new double[3];
+
+    /**
+     * @param statistics the statistics of each camera, by camera index
+     */
+    VisionGate(RobotPoseEstimator robotPoseEstimator, VisionAcceptanceStatistics[] statistics) {
+        this.robotPoseEstimator = robotPoseEstimator;
+        this.statistics = statistics;
+
+        firstGatedTimestamps = new double[statistics.length];
+        Arrays.fill(firstGatedTimestamps, Double.NaN);
+    }
+
+    /**
+     * Feeds an observation to the estimator, unless it's gated. Each observation is gated against the estimate after
+     * every earlier one, so they must be added in timestamp order.
+     *
+     * @return whether the observation was accepted
+     */
+    boolean addVisionObservation(int cameraIndex, RobotPoseEstimator.VisionObservation observation) {
+        final VisionAcceptanceStatistics cameraStatistics = statistics[cameraIndex];
+        final double squaredMahalanobisDistance = robotPoseEstimator.getSquaredMahalanobisDistance(observation);
+
+        if (Double.isNaN(squaredMahalanobisDistance)) {
+            cameraStatistics.recordRejected(VisionAcceptanceStatistics.Rejection.STALE);
+            return false;
+        }
+
+        cameraStatistics.recordSquaredMahalanobisDistance(squaredMahalanobisDistance);
+
+        if (squaredMahalanobisDistance <= VISION_INNOVATION_GATE) {
+            cameraStatistics.recordAccepted();
+        } else if (isRecovering(cameraIndex, observation)) {
+            cameraStatistics.recordRecovered();
+        } else {
+            if (Double.isNaN(firstGatedTimestamps[cameraIndex]))
+                firstGatedTimestamps[cameraIndex] = observation.timestamp();
+
+            recordGatedInnovation(cameraIndex, observation.timestamp());
+            cameraStatistics.recordRejected(VisionAcceptanceStatistics.Rejection.INNOVATION);
+            return false;
+        }
+
+        // A forced acceptance starts the wait over too, so a camera can't keep forcing itself in
+        firstGatedTimestamps[cameraIndex] = Double.NaN;
+        clearGatedInnovations();
+        robotPoseEstimator.addVisionObservation(observation);
+        return true;
+    }
+
+    /**
+     * Forgets every gated observation. Call this when the estimator is reset.
+     */
+    void reset() {
+        clearGatedInnovations();
+        Arrays.fill(firstGatedTimestamps, Double.NaN);
+    }
+
+    /**
+     * Computes the gated observation's {@link #innovation}, and checks whether it should be accepted anyway.
+     */
+    private boolean isRecovering(int cameraIndex, RobotPoseEstimator.VisionObservation observation) {
+        final Pose2d estimateAtTime = robotPoseEstimator.getEstimatedPoseAt(observation.timestamp());
+
+        innovation[0] = observation.visionPose().getX() - estimateAtTime.getX();
+        innovation[1] = observation.visionPose().getY() - estimateAtTime.getY();
+        innovation[2] = observation.visionPose().getRotation().minus(estimateAtTime.getRotation()).getRadians();
+
+        final double firstGatedTimestamp = firstGatedTimestamps[cameraIndex];
+
+        if (Double.isNaN(firstGatedTimestamp) || observation.timestamp() - firstGatedTimestamp < VISION_RECOVERY_SECONDS)
+            return false;
+
+        final boolean isSingleCamera = statistics.length == 1;
+
+        if (isSingleCamera && Math.hypot(innovation[0], innovation[1])
+                > VISION_RECOVERY_MAXIMUM_STD_DEVS * robotPoseEstimator.getTranslationStdDev())
+            return false;
+
+        int agreeingObservations = 0;
+
+        for (int i = 0; i < gatedCount; i++) {
+            if (!isSingleCamera && gatedCameraIndices[i] == cameraIndex) continue;
+            if (Math.abs(gatedTimestamps[i] - observation.timestamp()) > VISION_RECOVERY_SECONDS) continue;
+
+            final double translationDifference =
+                    Math.hypot(gatedInnovations[i * 3] - innovation[0], gatedInnovations[i * 3 + 1] - innovation[1]);
+            final double rotationDifference = MathUtil.angleModulus(gatedInnovations[i * 3 + 2] - innovation[2]);
+
+            if (translationDifference <= VISION_RECOVERY_AGREEMENT_METERS
+                    && Math.abs(rotationDifference) <= VISION_RECOVERY_AGREEMENT_RADIANS)
+                agreeingObservations++;
+        }
+
+        return agreeingObservations >= VISION_RECOVERY_AGREEING_OBSERVATIONS;
+    }
+
+    /**
+     * Keeps the latest {@link #innovation}, overwriting the oldest once the history is full.
+     */
+    private void recordGatedInnovation(int cameraIndex, double timestamp) {
+        gatedTimestamps[nextGatedIndex] = timestamp;
+        gatedCameraIndices[nextGatedIndex] = cameraIndex;
+        System.arraycopy(innovation, 0, gatedInnovations, nextGatedIndex * 3, 3);
+
+        nextGatedIndex = (nextGatedIndex + 1) % GATED_HISTORY_CAPACITY;
+        gatedCount = Math.min(gatedCount + 1, GATED_HISTORY_CAPACITY);
+    }
+
+    private void clearGatedInnovations() {
+        gatedCount = 0;
+        nextGatedIndex = 0;
+    }
+}
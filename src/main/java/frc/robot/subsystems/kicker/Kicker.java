@@ -18,7 +18,7 @@ public class Kicker extends GenericSubsystem {
     }
 
     public boolean doesSeeNote() {
-        return BEAM_BREAKER.get() == 0;
+        return BEAM_BREAKER.hadValueSinceLastLoop(0);
     }
 
     private void setPercentageOutput(double percentageOutput) {
@@ -13,23 +13,32 @@ import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.FunctionalCommand;
 import frc.lib.generic.GenericSubsystem;
 import frc.lib.generic.OdometryThread;
+import frc.lib.generic.advantagekit.PackedArrayOutput;
 import frc.lib.math.Optimizations;
+import frc.lib.math.SampleAligner;
 import frc.lib.util.commands.InitExecuteCommand;
 import frc.lib.util.mirrorable.Mirrorable;
 import frc.robot.RobotContainer;
-import org.littletonrobotics.junction.AutoLogOutput;
+import org.littletonrobotics.junction.Logger;
 
 import java.util.function.BooleanSupplier;
 import java.util.function.DoubleSupplier;
 
 import static frc.lib.math.Conversions.proportionalPowerToMps;
+import static frc.lib.generic.advantagekit.PackedArrayOutput.MODULE_STATE_LENGTH;
 import static frc.lib.math.MathUtils.getAngleFromPoseToPose;
+import static frc.robot.GlobalConstants.ODOMETRY_FREQUENCY_HERTZ;
 import static frc.robot.RobotContainer.POSE_ESTIMATOR;
 import static frc.robot.subsystems.swerve.SwerveConstants.*;
 import static frc.robot.subsystems.swerve.SwerveModuleConstants.MODULES;
 
 public class Swerve extends GenericSubsystem {
     private double lastTimestamp = Timer.getFPGATimestamp();
+    private final SampleAligner odometrySampleAligner = new SampleAligner(2.0 / ODOMETRY_FREQUENCY_HERTZ);
+
+    private final PackedArrayOutput
+            currentStatesOutput = new PackedArrayOutput("Swerve/CurrentStates", MODULE_STATE_LENGTH, MODULES.length),
+            targetStatesOutput = new PackedArrayOutput("Swerve/TargetStates", MODULE_STATE_LENGTH, MODULES.length);
 
     public Swerve() {
         configurePathPlanner();
@@ -103,18 +112,35 @@ public class Swerve extends GenericSubsystem {
         return SWERVE_KINEMATICS.toChassisSpeeds(getModuleStates());
     }
 
+    /**
+     * Feeds the samples of the odometry thread since the last loop to the pose estimator.
+     * Every module's samples are interpolated onto the gyro's timestamps, and extrapolations are logged.
+     */
     public void periodicallyUpdateFromOdometry() {
-        final int odometryUpdates = GYRO.getInputs().threadGyroYawDegrees.length;
+        final double[] odometryTimestamps = getOdometryTimestamps();
+        final int odometryUpdates = odometryTimestamps.length;
 
         final SwerveDriveWheelPositions[] swerveWheelPositions = new SwerveDriveWheelPositions[odometryUpdates];
         final Rotation2d[] gyroRotations = new Rotation2d[odometryUpdates];
 
+        odometrySampleAligner.reset();
+
         for (int i = 0; i < odometryUpdates; i++) {
-            swerveWheelPositions[i] = getSwerveWheelPositions(i);
-            gyroRotations[i] = Rotation2d.fromDegrees(GYRO.getInputs().threadGyroYawDegrees[i]);
+            swerveWheelPositions[i] = getSwerveWheelPositions(odometryTimestamps[i]);
+            gyroRotations[i] = Rotation2d.fromDegrees(odometrySampleAligner.align(
+                    GYRO.getInputs().threadGyroYawTimestamps,
+                    GYRO.getInputs().threadGyroYawDegrees,
+                    odometryTimestamps[i],
+                    GYRO.getInputs().gyroYawDegrees
+            ));
         }
 
-        POSE_ESTIMATOR.addOdometryObservations(swerveWheelPositions, gyroRotations, OdometryThread.getInstance().getLatestTimestamps());
+        Logger.recordOutput("Odometry/ExtrapolatedSamples", odometrySampleAligner.getExtrapolatedSampleCount());
+        Logger.recordOutput("Odometry/MaxExtrapolationSeconds", odometrySampleAligner.getMaxExtrapolationSeconds());
+
+        POSE_ESTIMATOR.addOdometryObservations(swerveWheelPositions, gyroRotations, odometryTimestamps);
+
+        logModuleStates();
     }
 
     private void driveOrientationBased(double xPower, double yPower, double thetaPower, boolean robotCentric) {
@@ -175,15 +201,28 @@ public class Swerve extends GenericSubsystem {
         ROTATION_CONTROLLER.reset(POSE_ESTIMATOR.getCurrentPose().getRotation().getDegrees());
     }
 
-    private SwerveDriveWheelPositions getSwerveWheelPositions(int odometryUpdateIndex) {
+    private SwerveDriveWheelPositions getSwerveWheelPositions(double timestamp) {
         final SwerveModulePosition[] swerveModulePositions = new SwerveModulePosition[MODULES.length];
 
         for (int i = 0; i < MODULES.length; i++)
-            swerveModulePositions[i] = MODULES[i].getOdometryPosition(odometryUpdateIndex);
+            swerveModulePositions[i] = MODULES[i].getOdometryPosition(timestamp, odometrySampleAligner);
 
         return new SwerveDriveWheelPositions(swerveModulePositions);
     }
 
+    /**
+     * The gyro's sample timestamps are the grid every other odometry signal is aligned to.
+     * Falls back to the odometry thread's poll timestamps if the gyro has no per-sample timestamps.
+     */
+    private double[] getOdometryTimestamps() {
+        final double[] gyroTimestamps = GYRO.getInputs().threadGyroYawTimestamps;
+
+        if (gyroTimestamps.length == GYRO.getInputs().threadGyroYawDegrees.length && gyroTimestamps.length > 0)
+            return gyroTimestamps;
+
+        return OdometryThread.getInstance().getLatestTimestamps();
+    }
+
     private void configurePathPlanner() {
         AutoBuilder.configureHolonomic(
                 POSE_ESTIMATOR::getCurrentPose,
@@ -208,7 +247,6 @@ public class Swerve extends GenericSubsystem {
         );
     }
 
-    @AutoLogOutput(key = "Swerve/CurrentStates")
     private SwerveModuleState[] getModuleStates() {
         final SwerveModuleState[] states = new SwerveModuleState[MODULES.length];
 
@@ -218,15 +256,22 @@ public class Swerve extends GenericSubsystem {
         return states;
     }
 
-    @AutoLogOutput(key = "Swerve/TargetStates")
-    @SuppressWarnings("unused")
-    private SwerveModuleState[] getModuleTargetStates() {
-        final SwerveModuleState[] states = new SwerveModuleState[MODULES.length];
+    /**
+     * Logs the current and target module states, packed without creating a state per module.
+     */
+    private void logModuleStates() {
+        currentStatesOutput.start(MODULES.length);
+        targetStatesOutput.start(MODULES.length);
 
-        for (int i = 0; i < MODULES.length; i++)
-            states[i] = MODULES[i].getTargetState();
+        for (int i = 0; i < MODULES.length; i++) {
+            final SwerveModuleState targetState = MODULES[i].getTargetState();
 
-        return states;
+            currentStatesOutput.setModuleState(i, MODULES[i].getCurrentAngleRadians(), MODULES[i].getCurrentVelocity());
+            targetStatesOutput.setModuleState(i, targetState.angle.getRadians(), targetState.speedMetersPerSecond);
+        }
+
+        currentStatesOutput.record();
+        targetStatesOutput.record();
     }
 
     private ChassisSpeeds discretize(ChassisSpeeds chassisSpeeds) {
@@ -3,6 +3,7 @@ package frc.robot.subsystems.swerve;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.math.util.Units;
 import frc.lib.generic.hardware.encoder.Encoder;
 import frc.lib.generic.hardware.encoder.EncoderInputs;
 import frc.lib.generic.hardware.motor.Motor;
@@ -10,8 +11,7 @@ import frc.lib.generic.hardware.motor.MotorInputs;
 import frc.lib.generic.hardware.motor.MotorProperties;
 import frc.lib.math.Conversions;
 import frc.lib.math.Optimizations;
-
-import java.util.Arrays;
+import frc.lib.math.SampleAligner;
 
 import static frc.lib.math.Conversions.rotationsToMetres;
 import static frc.robot.GlobalConstants.VOLTAGE_COMPENSATION_SATURATION;
@@ -42,20 +42,26 @@ public class SwerveModule {
     /**
      * The odometry thread can update itself faster than the main code loop (which is 50 hertz).
      * Instead of using the latest odometry update, the accumulated odometry positions since the last loop to get a more accurate position.
+     * <p>
+     * The drive motor and steer encoder samples are interpolated to the requested timestamp, so they line up with the gyro's
+     * samples even when the devices were sampled at different times, or a different amount of times.
      *
-     * @param odometryUpdateIndex the index of the odometry update
-     * @return the position of the module at the given odometry update index
+     * @param timestamp the timestamp of the odometry update, in seconds
+     * @param aligner   the aligner to interpolate the samples with
+     * @return the position of the module at the given timestamp
      */
-    protected SwerveModulePosition getOdometryPosition(int odometryUpdateIndex) {
-        if (odometryUpdateIndex >= getDriveMotorInputs().threadSystemPosition.length)
-            return new SwerveModulePosition(
-                getDriveMetersTraveled(getDriveMotorInputs().threadSystemPosition)[getDriveMotorInputs().threadSystemPosition.length - 1],
-                Rotation2d.fromRotations(getSteerEncoderInputs().threadPosition[getSteerEncoderInputs().threadPosition.length - 1])
-        );
+    protected SwerveModulePosition getOdometryPosition(double timestamp, SampleAligner aligner) {
+        final MotorInputs driveMotorInputs = getDriveMotorInputs();
+        final EncoderInputs steerEncoderInputs = getSteerEncoderInputs();
+
+        final double driveRotations = aligner.align(driveMotorInputs.threadSystemPositionTimestamps,
+                driveMotorInputs.threadSystemPosition, timestamp, driveMotorInputs.systemPosition);
+        final double steerRotations = aligner.alignRotations(steerEncoderInputs.threadPositionTimestamps,
+                steerEncoderInputs.threadPosition, timestamp, steerEncoderInputs.position);
 
         return new SwerveModulePosition(
-                getDriveMetersTraveled(getDriveMotorInputs().threadSystemPosition)[odometryUpdateIndex],
-                Rotation2d.fromRotations(getSteerEncoderInputs().threadPosition[odometryUpdateIndex])
+                rotationsToMetres(driveRotations, WHEEL_DIAMETER),
+                Rotation2d.fromRotations(steerRotations)
         );
     }
 
@@ -92,6 +98,14 @@ public class SwerveModule {
         return targetState;
     }
 
+    protected double getCurrentVelocity() {
+        return driveMotor.getSystemVelocity();
+    }
+
+    protected double getCurrentAngleRadians() {
+        return Units.rotationsToRadians(steerEncoder.getEncoderPosition());
+    }
+
     private Rotation2d getCurrentAngle() {
         return Rotation2d.fromRotations(steerEncoder.getEncoderPosition());
     }
@@ -104,10 +118,6 @@ public class SwerveModule {
         return driveMotor.getInputs();
     }
 
-    private double[] getDriveMetersTraveled(double[] rotationsPositions) {
-        return Arrays.stream(rotationsPositions).map(position -> rotationsToMetres(position, WHEEL_DIAMETER)).toArray();
-    }
-
     private boolean isTemperatureOkay() {
         return driveMotor.getTemperature() < 80;
     }
@@ -0,0 +1,159 @@
+package frc.lib.generic.hardware;
+
+import frc.lib.generic.hardware.encoder.EncoderInputs;
+import frc.lib.generic.hardware.encoder.EncoderSignal;
+import frc.lib.generic.hardware.motor.MotorInputs;
+import frc.lib.generic.hardware.motor.hardware.MotorUtilities;
+import frc.lib.generic.hardware.pigeon.PigeonInputs;
+import frc.lib.generic.hardware.pigeon.PigeonSignal;
+import frc.lib.util.AllocationAssertions;
+import frc.lib.util.TimestampedDoubleRingBuffer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.littletonrobotics.junction.LogTable;
+
+import java.util.Arrays;
+
+import static frc.lib.generic.hardware.encoder.EncoderInputs.ENCODER_INPUTS_LENGTH;
+import static frc.lib.generic.hardware.motor.MotorInputs.MOTOR_INPUTS_LENGTH;
+import static frc.lib.generic.hardware.pigeon.PigeonInputs.PIGEON_INPUTS_LENGTH;
+
+/**
+ * Checks that a steady-state hardware cycle - draining the faster thread's samples into the inputs and logging them -
+ * stays within a fixed allocation budget, so allocations don't creep back into the logging path.
+ */
+class LoggingAllocationTest {
+    private static final int QUEUE_CAPACITY = 32;
+    private static final int SAMPLES_PER_CYCLE = 4;
+    private static final int MOTOR_COUNT = 8, ENCODER_COUNT = 4;
+
+    private static final int WARMUP_CYCLES = 2_000;
+    private static final int MEASURED_CYCLES = 10_000;
+
+    /**
+     * AdvantageKit allocates a value and a full key for every put, which this can't avoid.
+     * Roughly 200 bytes per put, for the ~190 puts of a cycle, now that every threaded signal logs its own timestamps.
+     */
+    private static final long LOGGING_BUDGET_BYTES_PER_CYCLE = 44 * 1024;
+
+    /** A device's registry, with the queues the faster thread would fill. */
+    private record ThreadedDevice(ThreadedSignalRegistry registry, TimestampedDoubleRingBuffer[] queues) { }
+
+    private final MotorInputs[] motorInputs = new MotorInputs[MOTOR_COUNT];
+    private final ThreadedDevice[] motors = new ThreadedDevice[MOTOR_COUNT];
+    private final LogTable[] motorTables = new LogTable[MOTOR_COUNT];
+    private final EncoderInputs[] encoderInputs = new EncoderInputs[ENCODER_COUNT];
+    private final ThreadedDevice[] encoders = new ThreadedDevice[ENCODER_COUNT];
+    private final LogTable[] encoderTables = new LogTable[ENCODER_COUNT];
+    private final PigeonInputs pigeonInputs = new PigeonInputs();
+    private final ThreadedDevice pigeon = createDevice(PIGEON_INPUTS_LENGTH / 2);
+
+    private final LogTable table = new LogTable(0);
+    private final LogTable pigeonTable = table.getSubtable("Pigeons/0");
+    private double time = 0;
+
+    @BeforeEach
+    void setUp() {
+        AllocationAssertions.assumeAllocationsMeasurable();
+
+        for (int i = 0; i < MOTOR_COUNT; i++) {
+            motorInputs[i] = new MotorInputs();
+            motorInputs[i].setSignalsToLog(allSignals(MOTOR_INPUTS_LENGTH));
+            motors[i] = createDevice(MOTOR_INPUTS_LENGTH / 2);
+            motorTables[i] = table.getSubtable("Motors/" + i);
+        }
+
+        for (int i = 0; i < ENCODER_COUNT; i++) {
+            encoderInputs[i] = new EncoderInputs();
+            encoderInputs[i].setSignalsToLog(allSignals(ENCODER_INPUTS_LENGTH));
+            encoders[i] = createDevice(ENCODER_INPUTS_LENGTH / 2);
+            encoderTables[i] = table.getSubtable("Encoders/" + i);
+        }
+
+        pigeonInputs.setSignalsToLog(allSignals(PIGEON_INPUTS_LENGTH));
+    }
+
+    @Test
+    void drainingThreadedInputsDoesNotAllocate() {
+        AllocationAssertions.assertDoesNotAllocate(WARMUP_CYCLES, MEASURED_CYCLES, cycle -> runCycle(false), "Draining");
+    }
+
+    @Test
+    void loggingCycleStaysWithinBudget() {
+        for (int i = 0; i < WARMUP_CYCLES; i++) runCycle(true);
+
+        final long bytesPerCycle = AllocationAssertions.measureAllocatedBytes(() -> {
+            for (int i = 0; i < MEASURED_CYCLES; i++) runCycle(true);
+        }) / MEASURED_CYCLES;
+
+        Assertions.assertTrue(bytesPerCycle <= LOGGING_BUDGET_BYTES_PER_CYCLE,
+                "A logging cycle allocated " + bytesPerCycle + " bytes, over the budget of " + LOGGING_BUDGET_BYTES_PER_CYCLE);
+    }
+
+    private void runCycle(boolean shouldLog) {
+        for (int i = 0; i < MOTOR_COUNT; i++) {
+            produceAndCapture(motors[i]);
+            MotorUtilities.handleThreadedInputs(motorInputs[i], motors[i].registry());
+
+            if (shouldLog) motorInputs[i].toLog(motorTables[i]);
+        }
+
+        for (int i = 0; i < ENCODER_COUNT; i++) {
+            final ThreadedSignalRegistry registry = encoders[i].registry();
+
+            produceAndCapture(encoders[i]);
+            registry.drain();
+
+            encoderInputs[i].threadPosition = registry.getSamples(EncoderSignal.POSITION.getId());
+            encoderInputs[i].threadVelocity = registry.getSamples(EncoderSignal.VELOCITY.getId());
+            encoderInputs[i].threadPositionTimestamps = registry.getTimestamps(EncoderSignal.POSITION.getId());
+            encoderInputs[i].threadVelocityTimestamps = registry.getTimestamps(EncoderSignal.VELOCITY.getId());
+
+            if (shouldLog) encoderInputs[i].toLog(encoderTables[i]);
+        }
+
+        produceAndCapture(pigeon);
+        pigeon.registry().drain();
+
+        pigeonInputs.threadGyroYawDegrees = pigeon.registry().getSamples(PigeonSignal.YAW.getId());
+        pigeonInputs.threadGyroPitchDegrees = pigeon.registry().getSamples(PigeonSignal.PITCH.getId());
+        pigeonInputs.threadGyroRollDegrees = pigeon.registry().getSamples(PigeonSignal.ROLL.getId());
+        pigeonInputs.threadGyroYawTimestamps = pigeon.registry().getTimestamps(PigeonSignal.YAW.getId());
+        pigeonInputs.threadGyroPitchTimestamps = pigeon.registry().getTimestamps(PigeonSignal.PITCH.getId());
+        pigeonInputs.threadGyroRollTimestamps = pigeon.registry().getTimestamps(PigeonSignal.ROLL.getId());
+
+        if (shouldLog) pigeonInputs.toLog(pigeonTable);
+    }
+
+    /**
+     * Plays the faster thread's part: offers a cycle's worth of samples to every queue, then captures them.
+     */
+    private void produceAndCapture(ThreadedDevice device) {
+        for (TimestampedDoubleRingBuffer queue : device.queues()) {
+            for (int sample = 0; sample < SAMPLES_PER_CYCLE; sample++) queue.offer(time + sample, time + sample * 0.005);
+
+            queue.capture();
+        }
+
+        time += 0.02;
+    }
+
+    private static ThreadedDevice createDevice(int signalCount) {
+        final ThreadedSignalRegistry registry = new ThreadedSignalRegistry(signalCount);
+        final TimestampedDoubleRingBuffer[] queues = new TimestampedDoubleRingBuffer[signalCount];
+
+        for (int id = 0; id < signalCount; id++) {
+            queues[id] = new TimestampedDoubleRingBuffer(QUEUE_CAPACITY);
+            registry.register(id, queues[id]);
+        }
+
+        return new ThreadedDevice(registry, queues);
+    }
+
+    private static boolean[] allSignals(int length) {
+        final boolean[] signalsToLog = new boolean[length];
+        Arrays.fill(signalsToLog, true);
+        return signalsToLog;
+    }
+}
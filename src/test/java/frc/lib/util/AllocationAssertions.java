@@ -0,0 +1,64 @@
+package frc.lib.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntConsumer;
+
+/**
+ * Measures how much the current thread allocates, for tests of code that must not allocate once warmed up.
+ * Tests are skipped on JVMs that can't measure per-thread allocations.
+ */
+public class AllocationAssertions {
+    /** Leaves room for the measurement's own noise, so any allocation in the measured code itself is a regression. */
+    public static final long MEASUREMENT_NOISE_BYTES = 1024;
+
+    private AllocationAssertions() {}
+
+    /**
+     * Warms the iteration up, then checks it doesn't allocate. Iterations are numbered on from the warmup, so they can
+     * index into data built up front.
+     *
+     * @param description what the iteration does, for the failure message
+     */
+    public static void assertDoesNotAllocate(int warmupIterations, int measuredIterations, IntConsumer iteration, String description) {
+        assumeAllocationsMeasurable();
+
+        for (int i = 0; i < warmupIterations; i++) iteration.accept(i);
+
+        final long allocatedBytes = measureAllocatedBytes(() -> {
+            for (int i = 0; i < measuredIterations; i++) iteration.accept(warmupIterations + i);
+        });
+
+        Assertions.assertTrue(allocatedBytes <= MEASUREMENT_NOISE_BYTES,
+                description + " allocated " + allocatedBytes + " bytes over " + measuredIterations + " iterations");
+    }
+
+    /**
+     * @return how many bytes the current thread allocated while running the code
+     */
+    public static long measureAllocatedBytes(Runnable code) {
+        final com.sun.management.ThreadMXBean threadMXBean = assumeAllocationsMeasurable();
+        final long start = threadMXBean.getCurrentThreadAllocatedBytes();
+
+        code.run();
+
+        return threadMXBean.getCurrentThreadAllocatedBytes() - start;
+    }
+
+    /**
+     * Skips the test if the JVM can't measure per-thread allocations. Call this before warming up, so the warmup isn't
+     * wasted on a skipped test.
+     */
+    public static com.sun.management.ThreadMXBean assumeAllocationsMeasurable() {
+        final com.sun.management.ThreadMXBean threadMXBean =
+                ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean ? bean : null;
+
+        Assumptions.assumeTrue(threadMXBean != null && threadMXBean.isThreadAllocatedMemorySupported(),
+                "The JVM can't measure per-thread allocations");
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        return threadMXBean;
+    }
+}
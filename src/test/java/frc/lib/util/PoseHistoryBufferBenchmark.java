@@ -0,0 +1,72 @@
+package frc.lib.util;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.interpolation.TimeInterpolatableBuffer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * Times the primitive pose history against {@link TimeInterpolatableBuffer}. Run it with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class PoseHistoryBufferBenchmark {
+    private static final double HISTORY_SIZE_SECONDS = 2.0;
+    private static final double ODOMETRY_PERIOD_SECONDS = 1.0 / 200;
+    private static final int CAPACITY = 600;
+
+    /** One main loop's worth of odometry, plus a vision lookup. */
+    private static final int SAMPLES_PER_CYCLE = 4;
+    private static final int WARMUP_CYCLES = 20_000;
+    private static final int MEASURED_CYCLES = 50_000;
+
+    private final Random random = new Random(1937);
+
+    @Test
+    void compareWithTimeInterpolatableBuffer() {
+        final PoseHistoryBuffer poseHistory = new PoseHistoryBuffer(HISTORY_SIZE_SECONDS, CAPACITY);
+        final TimeInterpolatableBuffer<Pose2d> reference = TimeInterpolatableBuffer.createBuffer(HISTORY_SIZE_SECONDS);
+        final Pose2d[] poses = new Pose2d[SAMPLES_PER_CYCLE];
+
+        for (int i = 0; i < SAMPLES_PER_CYCLE; i++)
+            poses[i] = new Pose2d(random.nextDouble() * 16, random.nextDouble() * 8, Rotation2d.fromRadians(random.nextDouble()));
+
+        for (int i = 0; i < WARMUP_CYCLES; i++) {
+            runPoseHistoryCycle(poseHistory, poses, i);
+            runReferenceCycle(reference, poses, i);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_CYCLES; i++) runPoseHistoryCycle(poseHistory, poses, WARMUP_CYCLES + i);
+        final long poseHistoryNanoseconds = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_CYCLES; i++) runReferenceCycle(reference, poses, WARMUP_CYCLES + i);
+        final long referenceNanoseconds = System.nanoTime() - start;
+
+        System.out.printf("PoseHistoryBuffer: %.1f ns/cycle, TimeInterpolatableBuffer: %.1f ns/cycle (%.1fx)%n",
+                (double) poseHistoryNanoseconds / MEASURED_CYCLES,
+                (double) referenceNanoseconds / MEASURED_CYCLES,
+                (double) referenceNanoseconds / poseHistoryNanoseconds);
+    }
+
+    private static void runPoseHistoryCycle(PoseHistoryBuffer poseHistory, Pose2d[] poses, int cycle) {
+        final double cycleTimestamp = cycle * SAMPLES_PER_CYCLE * ODOMETRY_PERIOD_SECONDS;
+
+        for (int i = 0; i < poses.length; i++)
+            poseHistory.addSample(cycleTimestamp + i * ODOMETRY_PERIOD_SECONDS, poses[i]);
+
+        poseHistory.getSample(cycleTimestamp - 0.0437);
+    }
+
+    private static void runReferenceCycle(TimeInterpolatableBuffer<Pose2d> reference, Pose2d[] poses, int cycle) {
+        final double cycleTimestamp = cycle * SAMPLES_PER_CYCLE * ODOMETRY_PERIOD_SECONDS;
+
+        for (int i = 0; i < poses.length; i++)
+            reference.addSample(cycleTimestamp + i * ODOMETRY_PERIOD_SECONDS, poses[i]);
+
+        reference.getSample(cycleTimestamp - 0.0437);
+    }
+}
@@ -0,0 +1,99 @@
+package frc.lib.util;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.interpolation.TimeInterpolatableBuffer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Checks that the primitive pose history matches {@link TimeInterpolatableBuffer}, and doesn't allocate while adding samples.
+ * See {@link PoseHistoryBufferBenchmark} for how fast it is.
+ */
+class PoseHistoryBufferTest {
+    private static final double HISTORY_SIZE_SECONDS = 2.0;
+    private static final double ODOMETRY_PERIOD_SECONDS = 1.0 / 200;
+    private static final int CAPACITY = 600;
+
+    /** One main loop's worth of odometry, plus a vision lookup. */
+    private static final int SAMPLES_PER_CYCLE = 4;
+    private static final int WARMUP_CYCLES = 20_000;
+    private static final int MEASURED_CYCLES = 50_000;
+
+    private static final double TOLERANCE = 1e-9;
+
+    private final Random random = new Random(1937);
+
+    @Test
+    void matchesTimeInterpolatableBuffer() {
+        final PoseHistoryBuffer poseHistory = new PoseHistoryBuffer(HISTORY_SIZE_SECONDS, CAPACITY);
+        final TimeInterpolatableBuffer<Pose2d> reference = TimeInterpolatableBuffer.createBuffer(HISTORY_SIZE_SECONDS);
+
+        Assertions.assertTrue(poseHistory.getSample(0).isEmpty());
+
+        double timestamp = 0;
+
+        for (int i = 0; i < 1_000; i++) {
+            final Pose2d pose = randomPose();
+
+            poseHistory.addSample(timestamp, pose);
+            reference.addSample(timestamp, pose);
+
+            final double lookupTimestamp = timestamp - random.nextDouble() * (HISTORY_SIZE_SECONDS + 0.5);
+
+            assertSamePose(reference.getSample(lookupTimestamp), poseHistory.getSample(lookupTimestamp));
+            assertSamePose(reference.getSample(timestamp + 1), poseHistory.getSample(timestamp + 1));
+
+            timestamp += ODOMETRY_PERIOD_SECONDS * (0.5 + random.nextDouble());
+        }
+
+        Assertions.assertEquals(reference.getInternalBuffer().lastKey(), poseHistory.getLatestTimestamp());
+    }
+
+    @Test
+    void replacesSampleAtSameTimestamp() {
+        final PoseHistoryBuffer poseHistory = new PoseHistoryBuffer(HISTORY_SIZE_SECONDS, CAPACITY);
+
+        poseHistory.addSample(1, new Pose2d(1, 1, new Rotation2d()));
+        poseHistory.addSample(1, new Pose2d(2, 2, new Rotation2d()));
+        poseHistory.addSample(0.5, new Pose2d(3, 3, new Rotation2d()));
+
+        Assertions.assertEquals(new Pose2d(2, 2, new Rotation2d()), poseHistory.getSample(0).orElseThrow());
+    }
+
+    @Test
+    void addingSamplesDoesNotAllocate() {
+        final PoseHistoryBuffer poseHistory = new PoseHistoryBuffer(HISTORY_SIZE_SECONDS, CAPACITY);
+        final double[] sample = new double[3];
+
+        AllocationAssertions.assertDoesNotAllocate(WARMUP_CYCLES, MEASURED_CYCLES,
+                cycle -> addAndLookUp(poseHistory, sample, cycle), "Adding and looking up samples");
+    }
+
+    private static void addAndLookUp(PoseHistoryBuffer poseHistory, double[] sample, int cycle) {
+        final double cycleTimestamp = cycle * SAMPLES_PER_CYCLE * ODOMETRY_PERIOD_SECONDS;
+
+        for (int i = 0; i < SAMPLES_PER_CYCLE; i++)
+            poseHistory.addSample(cycleTimestamp + i * ODOMETRY_PERIOD_SECONDS, i, -i, i * 0.1);
+
+        poseHistory.getSample(cycleTimestamp - 0.0437, sample);
+    }
+
+    private Pose2d randomPose() {
+        return new Pose2d(random.nextDouble() * 16, random.nextDouble() * 8, Rotation2d.fromRadians((random.nextDouble() - 0.5) * 4 * Math.PI));
+    }
+
+    private static void assertSamePose(Optional<Pose2d> expected, Optional<Pose2d> actual) {
+        Assertions.assertEquals(expected.isPresent(), actual.isPresent());
+
+        if (expected.isEmpty()) return;
+
+        Assertions.assertEquals(expected.get().getX(), actual.get().getX(), TOLERANCE);
+        Assertions.assertEquals(expected.get().getY(), actual.get().getY(), TOLERANCE);
+        Assertions.assertEquals(expected.get().getRotation().getCos(), actual.get().getRotation().getCos(), TOLERANCE);
+        Assertions.assertEquals(expected.get().getRotation().getSin(), actual.get().getRotation().getSin(), TOLERANCE);
+    }
+}
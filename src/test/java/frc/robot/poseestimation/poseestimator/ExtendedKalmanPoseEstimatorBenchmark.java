@@ -0,0 +1,51 @@
+package frc.robot.poseestimation.poseestimator;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static frc.robot.GlobalConstants.ODOMETRY_FREQUENCY_HERTZ;
+import static frc.robot.poseestimation.poseestimator.PoseEstimatorTestConstants.MODULE_LOCATIONS;
+
+/**
+ * Times the filter's odometry ticks against the odometry thread's period. Run it with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class ExtendedKalmanPoseEstimatorBenchmark {
+    private static final double ODOMETRY_PERIOD_SECONDS = 1.0 / ODOMETRY_FREQUENCY_HERTZ;
+    private static final int TICKS_PER_LOOP = 4;
+    private static final double FORWARD_PER_TICK = 0.01, ROTATION_PER_TICK = 0.005;
+
+    private static final int WARMUP_LOOPS = 20_000;
+    private static final int MEASURED_LOOPS = 50_000;
+
+    private final ExtendedKalmanPoseEstimator estimator = new ExtendedKalmanPoseEstimator(MODULE_LOCATIONS);
+
+    @Test
+    void timeOdometryTicks() {
+        for (int i = 0; i < WARMUP_LOOPS; i++) runLoop(i);
+
+        final long start = System.nanoTime();
+
+        for (int i = 0; i < MEASURED_LOOPS; i++) runLoop(WARMUP_LOOPS + i);
+
+        final double nanosecondsPerTick = (double) (System.nanoTime() - start) / (MEASURED_LOOPS * TICKS_PER_LOOP);
+        final double budgetShare = nanosecondsPerTick / (ODOMETRY_PERIOD_SECONDS * 1.0e9);
+
+        System.out.printf("ExtendedKalmanPoseEstimator: %.1f ns per odometry tick, including vision (%.4f%% of a tick)%n",
+                nanosecondsPerTick, budgetShare * 100);
+    }
+
+    /**
+     * One main loop's worth of odometry ticks and a vision update, with fixed values, for measuring the filter alone.
+     */
+    private void runLoop(int loop) {
+        final double loopTimestamp = loop * TICKS_PER_LOOP * ODOMETRY_PERIOD_SECONDS;
+
+        for (int i = 0; i < TICKS_PER_LOOP; i++) {
+            estimator.addOdometryTwist(loopTimestamp + i * ODOMETRY_PERIOD_SECONDS,
+                    FORWARD_PER_TICK, 0, ROTATION_PER_TICK, (loop * TICKS_PER_LOOP + i) * ROTATION_PER_TICK);
+        }
+
+        estimator.addVisionMeasurement(loopTimestamp - 0.03, 1, 1, 0.5, 0.1, 0.1, 0.2);
+    }
+}
@@ -0,0 +1,188 @@
+package frc.robot.poseestimation.poseestimator;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveDriveWheelPositions;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import frc.lib.util.AllocationAssertions;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static frc.robot.GlobalConstants.ODOMETRY_FREQUENCY_HERTZ;
+import static frc.robot.poseestimation.poseestimator.PoseEstimatorTestConstants.MODULE_LOCATIONS;
+
+/**
+ * Drives a simulated robot in a circle with noisy wheels, an offset gyro and delayed vision, and checks that the filter
+ * tracks it and doesn't allocate. See {@link ExtendedKalmanPoseEstimatorBenchmark} for how long a tick takes.
+ */
+class ExtendedKalmanPoseEstimatorTest {
+    private static final double ODOMETRY_PERIOD_SECONDS = 1.0 / ODOMETRY_FREQUENCY_HERTZ;
+    private static final int TICKS_PER_LOOP = 4;
+    private static final int VISION_LATENCY_TICKS = 6;
+
+    private static final double FORWARD_PER_TICK = 0.01, ROTATION_PER_TICK = 0.005;
+    private static final double WHEEL_NOISE = 0.0005, VISION_NOISE = 0.02, GYRO_OFFSET = 0.3;
+
+    private static final int TICKS = 4_000;
+    private static final int WARMUP_LOOPS = 5_000;
+    private static final int MEASURED_LOOPS = 5_000;
+
+    private final Random random = new Random(1937);
+    private final ExtendedKalmanPoseEstimator estimator = new ExtendedKalmanPoseEstimator(MODULE_LOCATIONS);
+
+    /* The true pose at every tick */
+    private final double[] trueX = new double[TICKS + 1], trueY = new double[TICKS + 1], trueTheta = new double[TICKS + 1];
+
+    @Test
+    void tracksTheRobotFromAWrongStartingPose() {
+        trueX[0] = 2;
+        trueY[0] = 1;
+        trueTheta[0] = 0.4;
+        estimator.resetPose(new Pose2d());
+
+        for (int tick = 1; tick <= TICKS; tick++) {
+            runTick(tick);
+
+            if (tick % TICKS_PER_LOOP == 0 && tick > VISION_LATENCY_TICKS) addVision(tick - VISION_LATENCY_TICKS);
+        }
+
+        final Pose2d estimatedPose = estimator.getEstimatedPose();
+
+        Assertions.assertEquals(trueX[TICKS], estimatedPose.getX(), 0.05);
+        Assertions.assertEquals(trueY[TICKS], estimatedPose.getY(), 0.05);
+        Assertions.assertEquals(0, MathUtil.angleModulus(trueTheta[TICKS] - estimatedPose.getRotation().getRadians()), 0.02);
+    }
+
+    @Test
+    void gatesVisionFarFromTheEstimate() {
+        estimator.resetPose(new Pose2d());
+
+        for (int tick = 1; tick <= TICKS; tick++) {
+            runTick(tick);
+
+            if (tick % TICKS_PER_LOOP == 0 && tick > VISION_LATENCY_TICKS) addVision(tick - VISION_LATENCY_TICKS);
+        }
+
+        final int tick = TICKS - VISION_LATENCY_TICKS;
+        final double timestamp = tick * ODOMETRY_PERIOD_SECONDS, std = VISION_NOISE * 2;
+
+        final double consistentDistance = estimator.getSquaredMahalanobisDistance(
+                timestamp, trueX[tick], trueY[tick], trueTheta[tick], std, std, std);
+        final double outlierDistance = estimator.getSquaredMahalanobisDistance(
+                timestamp, trueX[tick] + 1, trueY[tick], trueTheta[tick], std, std, std);
+
+        Assertions.assertTrue(consistentDistance < PoseEstimatorConstants.VISION_INNOVATION_GATE,
+                "A consistent observation was at " + consistentDistance);
+        Assertions.assertTrue(outlierDistance > PoseEstimatorConstants.VISION_INNOVATION_GATE,
+                "An outlier was at " + outlierDistance);
+        Assertions.assertTrue(Double.isNaN(estimator.getSquaredMahalanobisDistance(timestamp - 10, 0, 0, 0, std, std, std)));
+    }
+
+    @Test
+    void covarianceGrowsWithoutVision() {
+        estimator.resetPose(new Pose2d(1, 1, new Rotation2d()));
+
+        final double initialVariance = estimator.getVariance(0);
+
+        for (int tick = 1; tick <= TICKS; tick++) runTick(tick);
+
+        Assertions.assertTrue(estimator.getVariance(0) > initialVariance);
+    }
+
+    @Test
+    void matchesTheKinematicsTwist() {
+        final SwerveDriveWheelPositions start = createWheelPositions(0, 0, new Rotation2d());
+        final SwerveDriveWheelPositions end = createWheelPositions(0.3, 0.2, Rotation2d.fromDegrees(20));
+        final Pose2d expectedPose = new Pose2d().exp(new SwerveDriveKinematics(MODULE_LOCATIONS).toTwist2d(start, end));
+
+        estimator.resetPose(new Pose2d());
+        estimator.addOdometryObservation(new RobotPoseEstimator.OdometryObservation(start, null, 0));
+        estimator.addOdometryObservation(new RobotPoseEstimator.OdometryObservation(end, null, ODOMETRY_PERIOD_SECONDS));
+
+        final Pose2d odometryPose = estimator.getOdometryPose();
+
+        Assertions.assertEquals(expectedPose.getX(), odometryPose.getX(), 1e-9);
+        Assertions.assertEquals(expectedPose.getY(), odometryPose.getY(), 1e-9);
+        Assertions.assertEquals(expectedPose.getRotation().getRadians(), odometryPose.getRotation().getRadians(), 1e-9);
+    }
+
+    @Test
+    void doesNotAllocate() {
+        AllocationAssertions.assumeAllocationsMeasurable();
+
+        // The observations are built up front, so only the filter's own allocations are measured
+        final RobotPoseEstimator.OdometryObservation[] observations =
+                createOdometryObservations((WARMUP_LOOPS + MEASURED_LOOPS) * TICKS_PER_LOOP);
+
+        AllocationAssertions.assertDoesNotAllocate(WARMUP_LOOPS, MEASURED_LOOPS, loop -> runLoop(observations, loop),
+                "A loop of the filter");
+    }
+
+    /**
+     * One main loop's worth of odometry observations and a vision update.
+     */
+    private void runLoop(RobotPoseEstimator.OdometryObservation[] observations, int loop) {
+        for (int i = 0; i < TICKS_PER_LOOP; i++)
+            estimator.addOdometryObservation(observations[loop * TICKS_PER_LOOP + i]);
+
+        estimator.addVisionMeasurement(observations[loop * TICKS_PER_LOOP].timestamp() - 0.03, 1, 1, 0.5, 0.1, 0.1, 0.2);
+    }
+
+    /**
+     * Drives forward while turning left, by driving the left modules slightly further than the right ones.
+     */
+    private static RobotPoseEstimator.OdometryObservation[] createOdometryObservations(int ticks) {
+        final RobotPoseEstimator.OdometryObservation[] observations = new RobotPoseEstimator.OdometryObservation[ticks];
+        final Rotation2d moduleAngle = new Rotation2d();
+
+        for (int tick = 0; tick < ticks; tick++) {
+            observations[tick] = new RobotPoseEstimator.OdometryObservation(
+                    createWheelPositions(tick * FORWARD_PER_TICK * 1.01, tick * FORWARD_PER_TICK * 0.99, moduleAngle),
+                    Rotation2d.fromRadians(tick * ROTATION_PER_TICK),
+                    tick * ODOMETRY_PERIOD_SECONDS
+            );
+        }
+
+        return observations;
+    }
+
+    /**
+     * @return the positions of the front left, front right, back left and back right modules
+     */
+    private static SwerveDriveWheelPositions createWheelPositions(double leftDistance, double rightDistance, Rotation2d angle) {
+        return new SwerveDriveWheelPositions(new SwerveModulePosition[]{
+                new SwerveModulePosition(leftDistance, angle),
+                new SwerveModulePosition(rightDistance, angle),
+                new SwerveModulePosition(leftDistance, angle),
+                new SwerveModulePosition(rightDistance, angle)
+        });
+    }
+
+    private void runTick(int tick) {
+        trueTheta[tick] = trueTheta[tick - 1] + ROTATION_PER_TICK;
+        trueX[tick] = trueX[tick - 1] + FORWARD_PER_TICK * Math.cos(trueTheta[tick - 1] + ROTATION_PER_TICK / 2);
+        trueY[tick] = trueY[tick - 1] + FORWARD_PER_TICK * Math.sin(trueTheta[tick - 1] + ROTATION_PER_TICK / 2);
+
+        estimator.addOdometryTwist(
+                tick * ODOMETRY_PERIOD_SECONDS,
+                FORWARD_PER_TICK + random.nextGaussian() * WHEEL_NOISE,
+                random.nextGaussian() * WHEEL_NOISE,
+                ROTATION_PER_TICK + random.nextGaussian() * WHEEL_NOISE,
+                MathUtil.angleModulus(trueTheta[tick] + GYRO_OFFSET + random.nextGaussian() * 0.001)
+        );
+    }
+
+    private void addVision(int tick) {
+        estimator.addVisionMeasurement(
+                tick * ODOMETRY_PERIOD_SECONDS,
+                trueX[tick] + random.nextGaussian() * VISION_NOISE,
+                trueY[tick] + random.nextGaussian() * VISION_NOISE,
+                trueTheta[tick] + random.nextGaussian() * VISION_NOISE,
+                VISION_NOISE * 2, VISION_NOISE * 2, VISION_NOISE * 2
+        );
+    }
+}
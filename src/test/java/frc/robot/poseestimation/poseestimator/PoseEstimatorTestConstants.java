@@ -0,0 +1,13 @@
+package frc.robot.poseestimation.poseestimator;
+
+import edu.wpi.first.math.geometry.Translation2d;
+
+/**
+ * Fixtures shared by the pose estimator tests.
+ */
+class PoseEstimatorTestConstants {
+    /** A square drivetrain, so the robot's own constants, and the hardware they create, aren't loaded. */
+    static final Translation2d[] MODULE_LOCATIONS = {
+            new Translation2d(0.3, 0.3), new Translation2d(0.3, -0.3), new Translation2d(-0.3, 0.3), new Translation2d(-0.3, -0.3)
+    };
+}
@@ -0,0 +1,220 @@
+package frc.robot.poseestimation.poseestimator;
+
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Twist2d;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveDriveWheelPositions;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static frc.robot.GlobalConstants.ODOMETRY_FREQUENCY_HERTZ;
+import static frc.robot.poseestimation.poseestimator.PoseEstimatorTestConstants.MODULE_LOCATIONS;
+
+/**
+ * Drives the default {@link PoseEstimator6328} in a circle on wheels that read further than the robot moved, with delayed
+ * vision through the {@link VisionGate}, and checks that good vision is accepted even after the odometry drifted, that a
+ * lost estimate recovers, and that outliers and bumped cameras don't get through.
+ */
+class VisionGateTest {
+    private static final double ODOMETRY_PERIOD_SECONDS = 1.0 / ODOMETRY_FREQUENCY_HERTZ;
+    private static final int TICKS_PER_LOOP = 4;
+    private static final int VISION_LATENCY_TICKS = 6;
+
+    /** The wheels read 5% further than the robot drove, like worn treads. */
+    private static final double WHEEL_DRIFT = 1.05;
+
+    /* Two tags 1.5 meters away, with the std devs PoseEstimator gives them. The actual noise is half of that */
+    private static final double TAG_DISTANCE = 1.5;
+    private static final int VISIBLE_TAGS = 2;
+    private static final double
+            TRANSLATION_STD = PoseEstimatorConstants.TRANSLATION_STD_EXPONENT * TAG_DISTANCE * TAG_DISTANCE / (VISIBLE_TAGS * VISIBLE_TAGS),
+            ROTATION_STD = PoseEstimatorConstants.ROTATION_STD_EXPONENT * TAG_DISTANCE * TAG_DISTANCE / VISIBLE_TAGS;
+
+    private final Random random = new Random(1937);
+    /** With the same ambiguity as {@link PoseEstimatorConstants#ODOMETRY_AMBIGUITY}. */
+    private final PoseEstimator6328 estimator =
+            new PoseEstimator6328(new SwerveDriveKinematics(MODULE_LOCATIONS), VecBuilder.fill(0.003, 0.003, 0.001));
+    private VisionGate visionGate;
+
+    private double speedMetersPerSecond = 2, rotationRadiansPerSecond = 0.5;
+
+    /** The true pose at every tick. */
+    private final List<Pose2d> truePoses = new ArrayList<>();
+    private final double[] moduleDistances = new double[MODULE_LOCATIONS.length];
+    private int tick = 0;
+
+    @Test
+    void acceptsGoodVisionAfterDrivingBlind() {
+        start(new Pose2d(1, 1, new Rotation2d()), new Pose2d(1, 1, new Rotation2d()), 1);
+
+        for (int loop = 0; loop < 250; loop++) {
+            driveLoop();
+            Assertions.assertTrue(addVision(0, false), "Rejected vision at loop " + loop);
+        }
+
+        for (int loop = 0; loop < 150; loop++) driveLoop();
+
+        Assertions.assertTrue(getError() > 0.2, "The odometry only drifted " + getError() + " meters");
+
+        for (int loop = 0; loop < 100; loop++) {
+            driveLoop();
+            Assertions.assertTrue(addVision(0, false), "Rejected vision " + loop + " loops after it came back");
+        }
+
+        Assertions.assertEquals(0, getError(), 0.02);
+    }
+
+    @Test
+    void recoversFromAWrongPose() {
+        start(new Pose2d(3, 3, new Rotation2d()), new Pose2d(4.5, 3, new Rotation2d()), 1);
+
+        for (int loop = 0; loop < 20; loop++) {
+            driveLoop();
+            Assertions.assertFalse(addVision(0, false), "Accepted vision before the estimate could be lost, at loop " + loop);
+        }
+
+        for (int loop = 0; loop < 230; loop++) {
+            driveLoop();
+            addVision(0, false);
+        }
+
+        Assertions.assertEquals(0, getError(), 0.02);
+    }
+
+    @Test
+    void keepsGatingOutliers() {
+        start(new Pose2d(1, 1, new Rotation2d()), new Pose2d(1, 1, new Rotation2d()), 1);
+
+        for (int loop = 0; loop < 100; loop++) {
+            driveLoop();
+            addVision(0, false);
+        }
+
+        for (int loop = 0; loop < 100; loop++) {
+            driveLoop();
+            Assertions.assertFalse(addVision(0, true), "Accepted an outlier at loop " + loop);
+        }
+    }
+
+    @Test
+    void keepsGatingABumpedCameraWhileParked() {
+        speedMetersPerSecond = 0;
+        rotationRadiansPerSecond = 0;
+        start(new Pose2d(3, 3, new Rotation2d()), new Pose2d(3, 3, new Rotation2d()), 1);
+
+        for (int loop = 0; loop < 200; loop++) {
+            driveLoop();
+            Assertions.assertFalse(addBumpedVision(0), "Accepted the bumped camera at loop " + loop);
+        }
+    }
+
+    @Test
+    void keepsGatingABumpedCameraThatOnlyAgreesWithItself() {
+        start(new Pose2d(3, 3, new Rotation2d()), new Pose2d(3, 3, new Rotation2d()), 2);
+
+        for (int loop = 0; loop < 75; loop++) {
+            driveLoop();
+            Assertions.assertFalse(addBumpedVision(1), "Accepted the bumped camera at loop " + loop);
+        }
+    }
+
+    private void start(Pose2d truePose, Pose2d estimatedPose, int cameraCount) {
+        final VisionAcceptanceStatistics[] statistics = new VisionAcceptanceStatistics[cameraCount];
+
+        for (int i = 0; i < cameraCount; i++)
+            statistics[i] = new VisionAcceptanceStatistics("Test" + i, 100);
+
+        visionGate = new VisionGate(estimator, statistics);
+        truePoses.add(truePose);
+        estimator.resetPose(estimatedPose);
+    }
+
+    private void driveLoop() {
+        final double forward = speedMetersPerSecond * ODOMETRY_PERIOD_SECONDS;
+        final double rotation = rotationRadiansPerSecond * ODOMETRY_PERIOD_SECONDS;
+
+        for (int i = 0; i < TICKS_PER_LOOP; i++) {
+            tick++;
+
+            final Pose2d truePose = truePoses.get(tick - 1).exp(new Twist2d(forward, 0, rotation));
+            final SwerveModulePosition[] modulePositions = new SwerveModulePosition[MODULE_LOCATIONS.length];
+
+            truePoses.add(truePose);
+
+            for (int module = 0; module < MODULE_LOCATIONS.length; module++) {
+                final double moduleDx = forward - rotation * MODULE_LOCATIONS[module].getY();
+                final double moduleDy = rotation * MODULE_LOCATIONS[module].getX();
+
+                final double moduleDistance = Math.hypot(moduleDx, moduleDy);
+
+                // A parked module has no direction to point in, so it's left straight
+                moduleDistances[module] += moduleDistance * WHEEL_DRIFT;
+                modulePositions[module] = new SwerveModulePosition(moduleDistances[module],
+                        moduleDistance == 0 ? new Rotation2d() : new Rotation2d(moduleDx, moduleDy));
+            }
+
+            estimator.addOdometryObservation(new RobotPoseEstimator.OdometryObservation(
+                    new SwerveDriveWheelPositions(modulePositions), truePose.getRotation(), tick * ODOMETRY_PERIOD_SECONDS));
+        }
+    }
+
+    /**
+     * Adds an observation from a camera whose mount was bumped, so it's consistently a meter off, plus noise.
+     *
+     * @return whether the gate accepted it
+     */
+    private boolean addBumpedVision(int cameraIndex) {
+        final int visionTick = Math.max(tick - VISION_LATENCY_TICKS, 0);
+        final Pose2d truePose = truePoses.get(visionTick);
+
+        return addVision(cameraIndex, visionTick, new Pose2d(
+                truePose.getX() + 1 + random.nextGaussian() * TRANSLATION_STD / 2,
+                truePose.getY() + random.nextGaussian() * TRANSLATION_STD / 2,
+                truePose.getRotation().plus(Rotation2d.fromRadians(random.nextGaussian() * ROTATION_STD / 2))
+        ));
+    }
+
+    /**
+     * @param isOutlier whether the vision is 1 to 3 meters and up to a radian off, instead of merely noisy
+     * @return whether the gate accepted it
+     */
+    private boolean addVision(int cameraIndex, boolean isOutlier) {
+        final int visionTick = Math.max(tick - VISION_LATENCY_TICKS, 0);
+        final Pose2d truePose = truePoses.get(visionTick);
+        final Pose2d visionPose;
+
+        if (isOutlier) {
+            final double direction = random.nextDouble() * 2 * Math.PI, distance = 1 + random.nextDouble() * 2;
+
+            visionPose = new Pose2d(
+                    truePose.getX() + distance * Math.cos(direction),
+                    truePose.getY() + distance * Math.sin(direction),
+                    truePose.getRotation().plus(Rotation2d.fromRadians(random.nextDouble() * 2 - 1))
+            );
+        } else {
+            visionPose = new Pose2d(
+                    truePose.getX() + random.nextGaussian() * TRANSLATION_STD / 2,
+                    truePose.getY() + random.nextGaussian() * TRANSLATION_STD / 2,
+                    truePose.getRotation().plus(Rotation2d.fromRadians(random.nextGaussian() * ROTATION_STD / 2))
+            );
+        }
+
+        return addVision(cameraIndex, visionTick, visionPose);
+    }
+
+    private boolean addVision(int cameraIndex, int visionTick, Pose2d visionPose) {
+        return visionGate.addVisionObservation(cameraIndex, new RobotPoseEstimator.VisionObservation(
+                visionPose, visionTick * ODOMETRY_PERIOD_SECONDS, VecBuilder.fill(TRANSLATION_STD, TRANSLATION_STD, ROTATION_STD)));
+    }
+
+    private double getError() {
+        return estimator.getEstimatedPose().getTranslation().getDistance(truePoses.get(tick).getTranslation());
+    }
+}